@@ -1,24 +1,53 @@
 package org.ausiankou.apigateway;
 
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 
 @Configuration
 public class GatewayConfig {
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
+                                           LocalRateLimiter localRateLimiter,
+                                           KeyResolver userKeyResolver,
+                                           ResponseCacheFilter userResponseCacheFilter,
+                                           HedgingFilter userHedgingFilter,
+                                           UserBatchFilter userBatchFilter) {
         return builder.routes()
+                // Раньше общего маршрута user-service: его путь тоже подходит
+                .route("user-service-batch", r -> r
+                        .path("/api/users/batch").and().method(HttpMethod.GET)
+                        .filters(f -> f
+                                .requestRateLimiter(config -> config
+                                        .setRateLimiter(localRateLimiter)
+                                        .setKeyResolver(userKeyResolver))
+                                .circuitBreaker(config -> config
+                                        .setName("userServiceCB")
+                                        .setFallbackUri("forward:/fallback/user-service"))
+                                .rewritePath("/api/users/batch", "/api/v1/users/batch")
+                                .filter(userBatchFilter)
+                                .filter(userResponseCacheFilter)
+                                .addRequestHeader("X-Gateway-Request", "true")
+                                .filter(userHedgingFilter))
+                        .uri("lb://USER-SERVICE"))
+
                 .route("user-service", r -> r
                         .path("/api/users/**")
                         .filters(f -> f
+                                .requestRateLimiter(config -> config
+                                        .setRateLimiter(localRateLimiter)
+                                        .setKeyResolver(userKeyResolver))
                                 .circuitBreaker(config -> config
                                         .setName("userServiceCB")
                                         .setFallbackUri("forward:/fallback/user-service"))
                                 .rewritePath("/api/users/(?<segment>.*)", "/api/v1/users/${segment}")
-                                .addRequestHeader("X-Gateway-Request", "true"))
+                                .filter(userResponseCacheFilter)
+                                .addRequestHeader("X-Gateway-Request", "true")
+                                .filter(userHedgingFilter))
                         .uri("lb://USER-SERVICE"))
 
                 .route("user-service-swagger", r -> r
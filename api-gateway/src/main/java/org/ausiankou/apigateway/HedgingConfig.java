@@ -0,0 +1,46 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class HedgingConfig {
+
+    @Bean
+    public RetryBudget retryBudget(
+            @Value("${gateway.retry-budget.ratio:0.1}") double ratio,
+            @Value("${gateway.retry-budget.min-per-second:5}") int minPerSecond,
+            @Value("${gateway.retry-budget.max-balance:100}") int maxBalance) {
+        return new RetryBudget(ratio, minPerSecond, maxBalance);
+    }
+
+    @Bean
+    public HedgingFilter userHedgingFilter(
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+            ObjectProvider<HttpClient> httpClient,
+            RetryBudget retryBudget,
+            UpstreamLatencyTracker upstreamLatencyTracker,
+            @Value("${gateway.hedging.percentile:0.95}") double percentile,
+            @Value("${gateway.hedging.min-delay:10ms}") Duration minDelay,
+            @Value("${gateway.hedging.max-delay:1s}") Duration maxDelay,
+            @Value("${spring.cloud.gateway.httpclient.response-timeout:5000ms}") Duration responseTimeout) {
+        // Тот же пул соединений и таймауты, что у маршрутизации шлюза
+        HttpClient client = httpClient.getIfAvailable(HttpClient::create);
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(client))
+                .build();
+        return new HedgingFilter(loadBalancerClientFactory, () -> headersFilters.getIfAvailable(List::of),
+                webClient, retryBudget, upstreamLatencyTracker, percentile, minDelay, maxDelay, responseTimeout);
+    }
+}
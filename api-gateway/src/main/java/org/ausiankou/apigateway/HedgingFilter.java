@@ -0,0 +1,246 @@
+package org.ausiankou.apigateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Хеджирование идемпотентных GET к {@code lb://} маршруту.
+ * <p>
+ * Фильтр сам отправляет запрос выбранному балансировщиком экземпляру. Если
+ * ответа нет дольше p95 недавних задержек (до первого байта), второй запрос
+ * уходит другому экземпляру, и клиент получает первый ответ без 5xx;
+ * проигравший запрос отменяется. Быстрый 5xx или сбой соединения запускают
+ * второй запрос сразу, то есть хедж заодно служит единственным повтором.
+ * Каждый второй запрос оплачивается из {@link RetryBudget}: когда бюджет
+ * исчерпан, остается только первый запрос.
+ * <p>
+ * Остальные методы идут обычной цепочкой. Фильтр ставится последним в
+ * маршруте, после перезаписи пути и заголовков.
+ */
+public class HedgingFilter implements GatewayFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingFilter.class);
+
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MIN_SAMPLES = 100;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+    private final Supplier<List<HttpHeadersFilter>> headersFilters;
+    private final WebClient webClient;
+    private final RetryBudget retryBudget;
+    private final UpstreamLatencyTracker tracker;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final Duration responseTimeout;
+
+    private final AtomicLongArray window = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicInteger recorded = new AtomicInteger();
+    private volatile long hedgeDelayNanos;
+
+    public HedgingFilter(LoadBalancerClientFactory loadBalancerClientFactory,
+                         Supplier<List<HttpHeadersFilter>> headersFilters, WebClient webClient,
+                         RetryBudget retryBudget, UpstreamLatencyTracker tracker, double percentile,
+                         Duration minDelay, Duration maxDelay, Duration responseTimeout) {
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.headersFilters = headersFilters;
+        this.webClient = webClient;
+        this.retryBudget = retryBudget;
+        this.tracker = tracker;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.responseTimeout = responseTimeout;
+        this.hedgeDelayNanos = maxDelayNanos;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (exchange.getRequest().getMethod() != HttpMethod.GET || route == null
+                || !"lb".equals(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+        ReactorServiceInstanceLoadBalancer loadBalancer = loadBalancerClientFactory
+                .getInstance(route.getUri().getHost(), ReactorServiceInstanceLoadBalancer.class);
+        if (loadBalancer == null) {
+            return chain.filter(exchange);
+        }
+        retryBudget.deposit();
+        HttpHeaders requestHeaders = HttpHeadersFilter.filterRequest(headersFilters.get(), exchange);
+        URI uri = exchange.getRequest().getURI();
+
+        AtomicReference<ServiceInstance> primaryInstance = new AtomicReference<>();
+        AtomicReference<Attempt> failure = new AtomicReference<>();
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+
+        Mono<Attempt> primary = choose(loadBalancer, null)
+                .doOnNext(primaryInstance::set)
+                .flatMap(instance -> send(instance, uri, requestHeaders))
+                .flatMap(attempt -> succeededOrError(attempt, failure))
+                .doOnError(e -> primaryFailed.tryEmitEmpty());
+
+        Mono<Attempt> hedge = Mono.firstWithSignal(
+                        Mono.delay(Duration.ofNanos(hedgeDelayNanos)).then(),
+                        primaryFailed.asMono())
+                .then(Mono.defer(() -> {
+                    if (!retryBudget.tryWithdraw()) {
+                        return Mono.error(new IllegalStateException("Retry budget exhausted"));
+                    }
+                    return choose(loadBalancer, primaryInstance.get())
+                            .flatMap(instance -> send(instance, uri, requestHeaders))
+                            .flatMap(attempt -> succeededOrError(attempt, failure));
+                }));
+
+        return Mono.firstWithValue(primary, hedge)
+                .onErrorResume(e -> {
+                    Attempt failed = failure.get();
+                    return failed != null ? Mono.just(failed) : Mono.error(unwrap(e));
+                })
+                .flatMap(attempt -> write(exchange, attempt));
+    }
+
+    /** Текущая задержка перед хеджем. */
+    public Duration hedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    private Mono<ServiceInstance> choose(ReactorServiceInstanceLoadBalancer loadBalancer, ServiceInstance avoid) {
+        // Для хеджа нужен другой экземпляр; две попытки выбора достаточно при P2C
+        return Mono.from(loadBalancer.choose())
+                .flatMap(response -> avoid != null && response.hasServer() && sameInstance(response, avoid)
+                        ? Mono.from(loadBalancer.choose())
+                        : Mono.just(response))
+                .filter(Response::hasServer)
+                .map(Response::getServer)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("No instances available")));
+    }
+
+    private Mono<Attempt> send(ServiceInstance instance, URI uri, HttpHeaders requestHeaders) {
+        long start = System.nanoTime();
+        AtomicReference<Boolean> outcome = new AtomicReference<>();
+        return Mono.defer(() -> {
+                    tracker.onStart(instance);
+                    return webClient.get()
+                            .uri(LoadBalancerUriTools.reconstructURI(instance, uri))
+                            .headers(headers -> {
+                                headers.addAll(requestHeaders);
+                                headers.remove(HttpHeaders.HOST);
+                            })
+                            .retrieve()
+                            .onStatus(status -> true, response -> Mono.empty())
+                            .toEntityFlux(DataBuffer.class)
+                            .timeout(responseTimeout);
+                })
+                .flatMap(entity -> {
+                    long latency = System.nanoTime() - start;
+                    boolean failed = entity.getStatusCode().is5xxServerError();
+                    outcome.set(failed);
+                    if (!failed) {
+                        recordLatency(latency);
+                        return Mono.just(new Attempt(instance, entity, null));
+                    }
+                    // Тело 5xx читается сразу: ошибка ветви отменяет потоковое тело
+                    // WebClient, а этот ответ может понадобиться клиенту позже
+                    return DataBufferUtils.join(entity.getBody() != null ? entity.getBody() : Flux.empty())
+                            .map(buffer -> {
+                                byte[] bytes = new byte[buffer.readableByteCount()];
+                                buffer.read(bytes);
+                                DataBufferUtils.release(buffer);
+                                return bytes;
+                            })
+                            .defaultIfEmpty(new byte[0])
+                            .map(bytes -> new Attempt(instance, entity, bytes));
+                })
+                .doFinally(signal -> {
+                    // Отмененный проигравший дает нижнюю оценку задержки и ошибкой не считается
+                    boolean failed = signal == SignalType.ON_ERROR || Boolean.TRUE.equals(outcome.get());
+                    tracker.onComplete(instance, System.nanoTime() - start, failed);
+                });
+    }
+
+    private static Mono<Attempt> succeededOrError(Attempt attempt, AtomicReference<Attempt> failure) {
+        if (!attempt.entity().getStatusCode().is5xxServerError()) {
+            return Mono.just(attempt);
+        }
+        failure.compareAndSet(null, attempt);
+        return Mono.error(new IllegalStateException("Upstream responded " + attempt.entity().getStatusCode()));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Attempt attempt) {
+        ServerHttpResponse response = exchange.getResponse();
+        ResponseEntity<Flux<DataBuffer>> entity = attempt.entity();
+        response.setStatusCode(entity.getStatusCode());
+        response.getHeaders().putAll(HttpHeadersFilter.filter(headersFilters.get(), entity.getHeaders(), exchange,
+                HttpHeadersFilter.Type.RESPONSE));
+        if (attempt.bufferedBody() != null) {
+            return response.writeWith(
+                    Mono.fromSupplier(() -> response.bufferFactory().wrap(attempt.bufferedBody())));
+        }
+        return response.writeWith(entity.getBody() != null ? entity.getBody() : Flux.empty());
+    }
+
+    private void recordLatency(long latencyNanos) {
+        int index = recorded.getAndIncrement();
+        window.set(index & (WINDOW_SIZE - 1), latencyNanos);
+        if (index >= MIN_SAMPLES && (index & 63) == 0) {
+            // Пересчет раз в 64 замера: сортировка окна не попадает в каждый запрос
+            int size = Math.min(index + 1, WINDOW_SIZE);
+            long[] samples = new long[size];
+            for (int i = 0; i < size; i++) {
+                samples[i] = window.get(i);
+            }
+            Arrays.sort(samples);
+            long p = samples[Math.min(size - 1, (int) (size * percentile))];
+            hedgeDelayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, p));
+            log.debug("Задержка хеджа: {} мс, бюджет повторов: {}", hedgeDelayNanos / 1_000_000,
+                    retryBudget.available());
+        }
+    }
+
+    private static boolean sameInstance(Response<ServiceInstance> response, ServiceInstance other) {
+        ServiceInstance instance = response.getServer();
+        return instance.getHost().equals(other.getHost()) && instance.getPort() == other.getPort();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        // firstWithValue без значения собирает ошибки всех ветвей; первая — основной запрос
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    /** Ответ экземпляра; у 5xx тело уже прочитано в {@code bufferedBody}. */
+    private record Attempt(ServiceInstance instance, ResponseEntity<Flux<DataBuffer>> entity, byte[] bufferedBody) {
+    }
+}
@@ -0,0 +1,50 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Замеряет запросы к экземпляру, выбранному балансировщиком, для
+ * {@link UpstreamLatencyTracker}. Работает сразу после
+ * {@link ReactiveLoadBalancerClientFilter} и учитывает и отмену запроса
+ * (таймаут circuit breaker), которую не видят колбэки LoadBalancerLifecycle.
+ */
+public class LatencyTrackingFilter implements GlobalFilter, Ordered {
+
+    private final UpstreamLatencyTracker tracker;
+
+    public LatencyTrackingFilter(UpstreamLatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance instance = chosen.getServer();
+        long start = System.nanoTime();
+        tracker.onStart(instance);
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+            tracker.onComplete(instance, System.nanoTime() - start, failed);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,33 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+@LoadBalancerClient(name = "USER-SERVICE", configuration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    @Bean
+    public UpstreamLatencyTracker upstreamLatencyTracker(
+            @Value("${gateway.load-balancer.latency-decay:10s}") Duration decay,
+            @Value("${gateway.load-balancer.ejection.consecutive-failures:5}") int failureThreshold,
+            @Value("${gateway.load-balancer.ejection.latency-factor:3.0}") double outlierFactor,
+            @Value("${gateway.load-balancer.ejection.min-latency:100ms}") Duration outlierMinLatency,
+            @Value("${gateway.load-balancer.ejection.base-time:30s}") Duration baseEjection,
+            ObjectProvider<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerFactory) {
+        return new UpstreamLatencyTracker(decay, failureThreshold, outlierFactor, outlierMinLatency, baseEjection,
+                Map.of("USER-SERVICE", "userServiceCB"), circuitBreakerFactory);
+    }
+
+    @Bean
+    public LatencyTrackingFilter latencyTrackingFilter(UpstreamLatencyTracker upstreamLatencyTracker) {
+        return new LatencyTrackingFilter(upstreamLatencyTracker);
+    }
+}
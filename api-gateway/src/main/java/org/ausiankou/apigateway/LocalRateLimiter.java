@@ -0,0 +1,246 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket в памяти шлюза, без Redis и сетевых обращений.
+ * <p>
+ * Корзина на пару (маршрут, ключ) — одно {@link AtomicLong} с теоретическим
+ * временем прихода следующего запроса (GCRA): решение — одна CAS-операция.
+ * Корзина с временем в прошлом полна и неотличима от новой, поэтому такие
+ * записи удаляются при очистке без потери состояния. Больше
+ * {@code maxKeys} корзин не хранится: новые ключи сверх лимита делят одну
+ * общую корзину маршрута.
+ * <p>
+ * При включенной синхронизации кластера потраченные токены копятся по ключам
+ * и через {@link RateLimitClusterSync} списываются из корзин других
+ * экземпляров — лимит становится приблизительно общим.
+ */
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private static final char KEY_SEPARATOR = '|';
+    private static final String OVERFLOW_KEY = "\u0000overflow";
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Config defaultConfig;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final AtomicReference<ConcurrentHashMap<String, LongAdder>> spent = new AtomicReference<>();
+
+    public LocalRateLimiter(Config defaultConfig, int maxKeys, ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.defaultConfig = defaultConfig;
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        long now = System.nanoTime();
+        String key = routeId + KEY_SEPARATOR + id;
+        TokenBucket bucket = bucket(key, routeId, config, now);
+        long remaining = bucket.tryAcquire(now, config.getRequestedTokens());
+        boolean allowed = remaining >= 0;
+        if (allowed) {
+            recordSpent(key, config.getRequestedTokens());
+        }
+        return Mono.just(new Response(allowed, headers(config, Math.max(remaining, 0))));
+    }
+
+    /**
+     * Включает учет потраченных токенов для {@link #drainSpent()}; без него
+     * синхронизация кластера не работает.
+     */
+    public void enableSpentTracking() {
+        spent.compareAndSet(null, new ConcurrentHashMap<>());
+    }
+
+    /** @return токены, потраченные с прошлого вызова, по ключу корзины */
+    public Map<String, Long> drainSpent() {
+        ConcurrentHashMap<String, LongAdder> current = spent.get();
+        if (current == null || current.isEmpty()) {
+            return Map.of();
+        }
+        spent.compareAndSet(current, new ConcurrentHashMap<>());
+        Map<String, Long> drained = new HashMap<>();
+        current.forEach((key, adder) -> drained.put(key, adder.sum()));
+        return drained;
+    }
+
+    /** Списывает из локальных корзин токены, потраченные на других экземплярах. */
+    public void applyRemoteSpent(Map<String, Long> remoteSpent) {
+        long now = System.nanoTime();
+        remoteSpent.forEach((key, tokens) -> {
+            int separator = key.indexOf(KEY_SEPARATOR);
+            if (separator < 0 || tokens == null || tokens <= 0) {
+                return;
+            }
+            String routeId = key.substring(0, separator);
+            bucket(key, routeId, loadConfiguration(routeId), now).consume(now, tokens);
+        });
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private Config loadConfiguration(String routeId) {
+        Config routeConfig = getConfig().get(routeId);
+        return routeConfig != null ? routeConfig : defaultConfig;
+    }
+
+    private TokenBucket bucket(String key, String routeId, Config config, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        sweep(now);
+        if (buckets.size() >= maxKeys) {
+            return buckets.computeIfAbsent(routeId + KEY_SEPARATOR + OVERFLOW_KEY,
+                    k -> new TokenBucket(config, now));
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(config, now));
+    }
+
+    /**
+     * Удаляет полные корзины при появлении новых ключей. Не чаще раза в секунду
+     * и одним потоком: проход по всей таблице не должен попадать в каждое решение.
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastSweep.set(now);
+            // Запрос, взявший корзину до удаления, спишет токен из уже удаленной —
+            // одна лишняя попытка на ключ допустима
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private void recordSpent(String key, int tokens) {
+        ConcurrentHashMap<String, LongAdder> current = spent.get();
+        if (current != null) {
+            current.computeIfAbsent(key, k -> new LongAdder()).add(tokens);
+        }
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        Map<String, String> headers = new HashMap<>(8);
+        headers.put(REMAINING_HEADER, Long.toString(remaining));
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        headers.put(REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+        return headers;
+    }
+
+    /**
+     * GCRA: {@code tat} — момент, когда корзина снова станет полной. Запрос на
+     * {@code n} токенов сдвигает его на {@code n * interval}; отказ, если он
+     * уходит дальше {@code now + burst * interval}.
+     */
+    static final class TokenBucket {
+        private final AtomicLong tat;
+        private final long interval;
+        private final long tolerance;
+
+        TokenBucket(Config config, long now) {
+            this.interval = 1_000_000_000L / config.getReplenishRate();
+            this.tolerance = interval * config.getBurstCapacity();
+            this.tat = new AtomicLong(now);
+        }
+
+        /** @return оставшиеся токены или -1, если запрос отклонен */
+        long tryAcquire(long now, int tokens) {
+            long increment = interval * tokens;
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + increment;
+                long ahead = next - now;
+                if (ahead > tolerance) {
+                    return -1;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return (tolerance - ahead) / interval;
+                }
+            }
+        }
+
+        /** Списывает токены без отказа, но не глубже пустой корзины. */
+        void consume(long now, long tokens) {
+            while (true) {
+                long current = tat.get();
+                long next = Math.min(Math.max(current, now) + interval * tokens, now + tolerance);
+                if (next <= current || tat.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return tat.get() - now <= 0;
+        }
+    }
+
+    public static class Config {
+
+        private int replenishRate;
+        private int burstCapacity;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+                    + ", requestedTokens=" + requestedTokens + '}';
+        }
+    }
+}
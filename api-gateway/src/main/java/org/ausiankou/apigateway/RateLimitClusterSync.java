@@ -0,0 +1,118 @@
+package org.ausiankou.apigateway;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обмен расходом токенов между экземплярами шлюза. Раз в {@code interval}
+ * экземпляр рассылает потраченные с прошлого раза токены всем остальным
+ * экземплярам своего сервиса из Eureka, а полученные от них списывает из
+ * локальных корзин. Решения остаются локальными, лимит общий с точностью до
+ * одного интервала; недоступный экземпляр просто пропускается.
+ * <p>
+ * Расход принимается только с общим токеном {@code gateway.rate-limit.cluster.token}:
+ * без него любой клиент мог бы исчерпать чужие лимиты, поэтому пустой токен
+ * не дает запустить синхронизацию.
+ */
+public class RateLimitClusterSync {
+
+    public static final String SYNC_PATH = "/internal/rate-limit/sync";
+    public static final String TOKEN_HEADER = "X-Rate-Limit-Sync-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitClusterSync.class);
+
+    private final LocalRateLimiter rateLimiter;
+    private final DiscoveryClient discoveryClient;
+    private final WebClient webClient;
+    private final String serviceId;
+    private final String localInstanceId;
+    private final Duration interval;
+    private final byte[] token;
+    private Disposable subscription;
+
+    public RateLimitClusterSync(LocalRateLimiter rateLimiter, DiscoveryClient discoveryClient,
+                                String serviceId, String localInstanceId,
+                                Duration interval, String token) {
+        this.rateLimiter = rateLimiter;
+        this.discoveryClient = discoveryClient;
+        this.webClient = WebClient.create();
+        this.serviceId = serviceId;
+        this.localInstanceId = localInstanceId;
+        this.interval = interval;
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException(
+                    "gateway.rate-limit.cluster.token (GATEWAY_RATE_LIMIT_SYNC_TOKEN) must be set when cluster sync is enabled");
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostConstruct
+    public void start() {
+        rateLimiter.enableSpentTracking();
+        subscription = Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> publish())
+                .subscribe();
+        log.info("Синхронизация лимитов включена: service={}, interval={}", serviceId, interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /** Принимает расход другого экземпляра; {@code false} — неверный токен. */
+    public boolean receive(Map<String, Long> remoteSpent, String requestToken) {
+        byte[] provided = requestToken != null ? requestToken.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (!MessageDigest.isEqual(token, provided)) {
+            return false;
+        }
+        rateLimiter.applyRemoteSpent(remoteSpent);
+        return true;
+    }
+
+    Mono<Void> publish() {
+        Map<String, Long> spent = rateLimiter.drainSpent();
+        if (spent.isEmpty()) {
+            return Mono.empty();
+        }
+        List<ServiceInstance> peers;
+        try {
+            peers = discoveryClient.getInstances(serviceId).stream()
+                    .filter(instance -> !instance.getInstanceId().equals(localInstanceId))
+                    .toList();
+        } catch (RuntimeException e) {
+            log.debug("Экземпляры {} недоступны: {}", serviceId, e.toString());
+            return Mono.empty();
+        }
+        return Flux.fromIterable(peers)
+                .flatMap(peer -> webClient.post()
+                        .uri(peer.getUri().resolve(SYNC_PATH))
+                        .header(TOKEN_HEADER, new String(token, StandardCharsets.UTF_8))
+                        .bodyValue(spent)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(interval)
+                        .onErrorResume(e -> {
+                            log.debug("Расход не отправлен на {}: {}", peer.getUri(), e.toString());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+}
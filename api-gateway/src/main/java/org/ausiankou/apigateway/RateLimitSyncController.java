@@ -0,0 +1,31 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@ConditionalOnProperty(name = "gateway.rate-limit.cluster.enabled", havingValue = "true")
+public class RateLimitSyncController {
+
+    private final RateLimitClusterSync clusterSync;
+
+    public RateLimitSyncController(RateLimitClusterSync clusterSync) {
+        this.clusterSync = clusterSync;
+    }
+
+    @PostMapping(RateLimitClusterSync.SYNC_PATH)
+    public Mono<ResponseEntity<Void>> receive(
+            @RequestBody Map<String, Long> spent,
+            @RequestHeader(name = RateLimitClusterSync.TOKEN_HEADER, required = false) String token) {
+        HttpStatus status = clusterSync.receive(spent, token) ? HttpStatus.NO_CONTENT : HttpStatus.FORBIDDEN;
+        return Mono.just(ResponseEntity.status(status).build());
+    }
+}
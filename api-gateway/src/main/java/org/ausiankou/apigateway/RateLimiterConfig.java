@@ -1,10 +1,18 @@
 package org.ausiankou.apigateway;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ConfigurationService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 @Configuration
 public class RateLimiterConfig {
 
@@ -17,4 +25,30 @@ public class RateLimiterConfig {
                         .getHostAddress()
         );
     }
+
+    @Bean
+    public LocalRateLimiter localRateLimiter(
+            ConfigurationService configurationService,
+            @Value("${gateway.rate-limit.replenish-rate:10}") int replenishRate,
+            @Value("${gateway.rate-limit.burst-capacity:20}") int burstCapacity,
+            @Value("${gateway.rate-limit.max-keys:100000}") int maxKeys) {
+        LocalRateLimiter.Config defaultConfig = new LocalRateLimiter.Config()
+                .setReplenishRate(replenishRate)
+                .setBurstCapacity(burstCapacity);
+        return new LocalRateLimiter(defaultConfig, maxKeys, configurationService);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.cluster.enabled", havingValue = "true")
+    public RateLimitClusterSync rateLimitClusterSync(
+            LocalRateLimiter localRateLimiter,
+            DiscoveryClient discoveryClient,
+            ObjectProvider<Registration> registration,
+            @Value("${spring.application.name}") String serviceId,
+            @Value("${gateway.rate-limit.cluster.interval:500ms}") Duration interval,
+            @Value("${gateway.rate-limit.cluster.token:}") String token) {
+        Registration self = registration.getIfAvailable();
+        return new RateLimitClusterSync(localRateLimiter, discoveryClient, serviceId,
+                self != null ? self.getInstanceId() : "", interval, token);
+    }
 }
@@ -0,0 +1,24 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCacheFilter userResponseCacheFilter(
+            @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${gateway.response-cache.max-entry-size:256KB}") DataSize maxEntrySize,
+            @Value("${gateway.response-cache.ttl:30s}") Duration ttl,
+            @Value("${spring.cloud.gateway.httpclient.response-timeout:5000ms}") Duration coalesceTimeout,
+            @Value("${gateway.response-cache.vary-headers:Accept,Accept-Language}") List<String> varyHeaders) {
+        return new ResponseCacheFilter(maxSize.toBytes(), (int) maxEntrySize.toBytes(), ttl, coalesceTimeout,
+                varyHeaders);
+    }
+}
@@ -0,0 +1,328 @@
+package org.ausiankou.apigateway;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Кэш ответов GET маршрута в памяти шлюза.
+ * <p>
+ * Ключ — путь после {@code rewritePath} с query и значения заголовков
+ * {@code varyHeaders}, поэтому фильтр ставится после перезаписи пути.
+ * Кэшируются только ответы 200 с JSON до {@code maxEntryBytes} без
+ * {@code Set-Cookie} и {@code Cache-Control: no-store/private}; промах
+ * отдается клиенту потоково, тело копируется попутно. Попадание отдается с
+ * {@code ETag}, совпавший {@code If-None-Match} получает 304.
+ * <p>
+ * {@code ETag} upstream проходит к клиенту уже в ответе-промахе и сохраняется
+ * в записи кэша, поэтому клиент может прислать {@code If-None-Match} со
+ * второго запроса. Если upstream {@code ETag} не отдает, шлюз вычисляет его по
+ * телу, а заголовки промаха уходят клиенту раньше тела: такой {@code ETag}
+ * появляется только в ответах из кэша, со второго чтения.
+ * <p>
+ * Одновременные промахи по одному ключу объединяются: в upstream идет только
+ * первый запрос, остальные ждут его результата и, если ответ не попал в кэш,
+ * идут в upstream сами. Любой успешный изменяющий запрос маршрута очищает кэш
+ * и начинает новое поколение: ответ GET, запрошенного до очистки, в кэш уже не
+ * попадает и ожидающим его запросам не отдается. Очистка локальна: кэши других
+ * экземпляров шлюза отдают свои копии до истечения {@code ttl}.
+ * Объем ограничен {@code maxBytes}, вытесняются самые старые записи.
+ */
+public class ResponseCacheFilter implements GatewayFilter {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final long ttlNanos;
+    private final Duration coalesceTimeout;
+    private final List<String> varyHeaders;
+
+    private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<QueuedEntry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(long maxBytes, int maxEntryBytes, Duration ttl, Duration coalesceTimeout,
+                               List<String> varyHeaders) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.coalesceTimeout = coalesceTimeout;
+        this.varyHeaders = List.copyOf(varyHeaders);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET) {
+            if (method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange).doOnSuccess(ignored -> invalidateIfSucceeded(exchange));
+        }
+        if (request.getHeaders().containsHeader(HttpHeaders.AUTHORIZATION)) {
+            return chain.filter(exchange);
+        }
+
+        String key = keyOf(request);
+        CachedResponse cached = lookup(key);
+        if (cached != null) {
+            return writeCached(exchange, cached);
+        }
+
+        Sinks.One<CachedResponse> leader = Sinks.one();
+        Sinks.One<CachedResponse> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            return existing.asMono()
+                    .timeout(coalesceTimeout, Mono.empty())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(response -> response.isPresent()
+                            ? writeCached(exchange, response.get())
+                            : forward(exchange, chain, null, null));
+        }
+        return forward(exchange, chain, key, leader);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        // Запросы после очистки не ждут лидеров, начатых до нее
+        inFlight.clear();
+        entries.clear();
+        insertionOrder.clear();
+        queued.set(0);
+        totalBytes.set(0);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain,
+                               String key, Sinks.One<CachedResponse> leader) {
+        // ETag upstream, если он есть, остается в ответе: это тот же ETag, что попадет в кэш
+        exchange.getResponse().getHeaders().set(CACHE_HEADER, "MISS");
+        if (leader == null) {
+            return chain.filter(exchange);
+        }
+        AtomicReference<CachedResponse> captured = new AtomicReference<>();
+        ServerWebExchange capturing = exchange.mutate()
+                .response(new CapturingResponse(exchange.getResponse(), captured, generation.get()))
+                .build();
+        return chain.filter(capturing).doFinally(signal -> {
+            CachedResponse response = captured.get();
+            if (response != null && store(key, response)) {
+                leader.tryEmitValue(response);
+            } else {
+                leader.tryEmitEmpty();
+            }
+            inFlight.remove(key, leader);
+        });
+    }
+
+    private CachedResponse lookup(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.expiresAt() > 0) {
+            remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void remove(String key, CachedResponse cached) {
+        if (entries.remove(key, cached)) {
+            totalBytes.addAndGet(-cached.body().length);
+        }
+    }
+
+    /**
+     * Счетчики объема меняются вместе с записями под одной блокировкой с
+     * {@link #clear()}, иначе очистка посреди вставки сбивала бы их.
+     *
+     * @return {@code false}, если ответ получен до очистки кэша и не сохранен
+     */
+    private synchronized boolean store(String key, CachedResponse response) {
+        if (response.generation() != generation.get()) {
+            return false;
+        }
+        CachedResponse previous = entries.put(key, response);
+        totalBytes.addAndGet(response.body().length - (previous != null ? previous.body().length : 0));
+        insertionOrder.add(new QueuedEntry(key, response));
+        queued.incrementAndGet();
+        // Очередь держит и записи, уже замененные или истекшие: они только
+        // пропускаются, а их число не дает очереди расти без предела
+        while (totalBytes.get() > maxBytes || queued.get() > 2 * entries.size() + 16) {
+            QueuedEntry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key(), oldest.response())) {
+                totalBytes.addAndGet(-oldest.response().body().length);
+            }
+        }
+        return true;
+    }
+
+    private void invalidateIfSucceeded(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status != null && status.is2xxSuccessful()) {
+            clear();
+        }
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.setETag(cached.etag());
+        headers.set(CACHE_HEADER, "HIT");
+        if (matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String keyOf(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String header : varyHeaders) {
+            key.append('\n').append(header).append(':');
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    private record CachedResponse(HttpHeaders headers, byte[] body, String etag, long expiresAt, long generation) {
+    }
+
+    private record QueuedEntry(String key, CachedResponse response) {
+    }
+
+    /**
+     * Пропускает тело ответа к клиенту без задержки и параллельно копирует
+     * его, пока ответ пригоден для кэша и укладывается в {@code maxEntryBytes}.
+     */
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final AtomicReference<CachedResponse> captured;
+        private final long generation;
+
+        CapturingResponse(ServerHttpResponse delegate, AtomicReference<CachedResponse> captured, long generation) {
+            super(delegate);
+            this.captured = captured;
+            this.generation = generation;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            AtomicBoolean overflow = new AtomicBoolean();
+            Flux<? extends DataBuffer> copying = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        int length = buffer.readableByteCount();
+                        if (overflow.get()) {
+                            return;
+                        }
+                        if (copy.size() + length > maxEntryBytes) {
+                            overflow.set(true);
+                            copy.reset();
+                            return;
+                        }
+                        byte[] bytes = new byte[length];
+                        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, length);
+                        copy.writeBytes(bytes);
+                    })
+                    .doOnComplete(() -> {
+                        if (!overflow.get()) {
+                            captured.set(toCached(copy.toByteArray()));
+                        }
+                    });
+            return super.writeWith(copying);
+        }
+
+        private boolean isCacheable() {
+            HttpHeaders headers = getHeaders();
+            MediaType contentType = headers.getContentType();
+            String cacheControl = headers.getCacheControl();
+            long contentLength = headers.getContentLength();
+            return getStatusCode() != null && getStatusCode().value() == HttpStatus.OK.value()
+                    && contentType != null
+                    && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                        || "json".equals(contentType.getSubtypeSuffix()))
+                    && !headers.containsHeader(HttpHeaders.SET_COOKIE)
+                    && (cacheControl == null
+                        || !(cacheControl.contains("no-store") || cacheControl.contains("private")))
+                    && contentLength <= maxEntryBytes;
+        }
+
+        private CachedResponse toCached(byte[] body) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(getHeaders());
+            for (String hopByHop : new String[] {HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING,
+                    HttpHeaders.CONTENT_LENGTH, CACHE_HEADER}) {
+                headers.remove(hopByHop);
+            }
+            String etag = getHeaders().getETag() != null
+                    ? getHeaders().getETag()
+                    : "\"0" + DigestUtils.md5DigestAsHex(body) + '"';
+            return new CachedResponse(HttpHeaders.readOnlyHttpHeaders(headers), body, etag,
+                    System.nanoTime() + ttlNanos, generation);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ausiankou.apigateway;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бюджет повторов: каждый обычный запрос кладет {@code ratio} токена, каждый
+ * повтор или хедж забирает один. Повторов получается не больше {@code ratio}
+ * от трафика — во время инцидента они не умножают нагрузку на падающий
+ * сервис. Чтобы при малом трафике повторы вообще были возможны, бюджет еще
+ * пополняется на {@code minPerSecond} токенов в секунду. Запас ограничен
+ * {@code maxBalance}, иначе долгое спокойствие копило бы шторм повторов.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final long nanosPerToken;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill;
+
+    public RetryBudget(double ratio, int minPerSecond, int maxBalance) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.maxBalance = maxBalance * SCALE;
+        this.nanosPerToken = minPerSecond > 0 ? 1_000_000_000L / minPerSecond : Long.MAX_VALUE;
+        this.balance = new AtomicLong(this.maxBalance);
+        this.lastRefill = new AtomicLong(System.nanoTime());
+    }
+
+    public void deposit() {
+        add(deposit);
+    }
+
+    public boolean tryWithdraw() {
+        refill(System.nanoTime());
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /** @return целые токены в бюджете */
+    public long available() {
+        refill(System.nanoTime());
+        return balance.get() / SCALE;
+    }
+
+    private void refill(long now) {
+        long last = lastRefill.get();
+        long tokens = (now - last) / nanosPerToken;
+        if (tokens > 0 && lastRefill.compareAndSet(last, last + tokens * nanosPerToken)) {
+            add(tokens * SCALE);
+        }
+    }
+
+    private void add(long amount) {
+        while (true) {
+            long current = balance.get();
+            long next = Math.min(current + amount, maxBalance);
+            if (next == current || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
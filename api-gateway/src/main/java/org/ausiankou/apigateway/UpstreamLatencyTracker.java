@@ -0,0 +1,273 @@
+package org.ausiankou.apigateway;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Статистика экземпляров upstream-сервисов для {@link LatencyAwareLoadBalancer}:
+ * peak-EWMA задержки, запросы в полете и временное исключение выбросов.
+ * <p>
+ * Экземпляр исключается после {@code failureThreshold} ошибок подряд (5xx или
+ * сбой соединения) или если его задержка в {@code outlierFactor} раз выше
+ * медианы остальных. Срок исключения растет с каждым повтором и снова
+ * сокращается на базовый срок за каждый такой же период без исключений. Когда
+ * исключены все экземпляры сервиса, связанный с ним circuit breaker шлюза
+ * переводится в OPEN, не дожидаясь набора ошибок в его окне. Экземпляры,
+ * пропавшие из списка discovery, забываются через {@link #retain}, иначе
+ * ушедшая реплика навсегда считалась бы доступной.
+ */
+public class UpstreamLatencyTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamLatencyTracker.class);
+
+    private static final int MIN_SAMPLES_FOR_OUTLIER = 20;
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final long decayNanos;
+    private final int failureThreshold;
+    private final double outlierFactor;
+    private final long outlierMinLatencyNanos;
+    private final long baseEjectionNanos;
+    private final Map<String, String> circuitBreakers;
+    private final ObjectProvider<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerFactory;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, InstanceStats>> services =
+            new ConcurrentHashMap<>();
+
+    public UpstreamLatencyTracker(Duration decay, int failureThreshold, double outlierFactor,
+                                  Duration outlierMinLatency, Duration baseEjection,
+                                  Map<String, String> circuitBreakers,
+                                  ObjectProvider<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerFactory) {
+        this.decayNanos = decay.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.outlierFactor = outlierFactor;
+        this.outlierMinLatencyNanos = outlierMinLatency.toNanos();
+        this.baseEjectionNanos = baseEjection.toNanos();
+        this.circuitBreakers = Map.copyOf(circuitBreakers);
+        this.circuitBreakerFactory = circuitBreakerFactory;
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return services.computeIfAbsent(instance.getServiceId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(keyOf(instance), key -> new InstanceStats(key));
+    }
+
+    /**
+     * Оставляет статистику только экземпляров из текущего списка сервиса.
+     * Пока записей не больше, чем экземпляров, список не сравнивается: новый
+     * экземпляр получает запись при первом выборе, и лишняя запись ушедшего
+     * становится видна по размеру.
+     */
+    public void retain(List<ServiceInstance> current) {
+        if (current.isEmpty()) {
+            return;
+        }
+        ConcurrentHashMap<String, InstanceStats> instances = services.get(current.get(0).getServiceId());
+        if (instances == null || instances.size() <= current.size()) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (ServiceInstance instance : current) {
+            keys.add(keyOf(instance));
+        }
+        if (instances.keySet().retainAll(keys)) {
+            log.info("Статистика ушедших экземпляров {} удалена, осталось {}",
+                    current.get(0).getServiceId(), instances.size());
+        }
+    }
+
+    public void onStart(ServiceInstance instance) {
+        stats(instance).inFlight.incrementAndGet();
+    }
+
+    public void onComplete(ServiceInstance instance, long latencyNanos, boolean failed) {
+        InstanceStats stats = stats(instance);
+        // Запись могла быть удалена и создана заново, пока запрос был в полете
+        stats.inFlight.updateAndGet(count -> Math.max(0, count - 1));
+        long now = System.nanoTime();
+        stats.record(now, latencyNanos, decayNanos);
+        if (failed) {
+            if (stats.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                eject(instance, stats, now, "ошибок подряд: " + stats.consecutiveFailures.get());
+            }
+            return;
+        }
+        stats.consecutiveFailures.set(0);
+        double latency = stats.latency();
+        if (stats.samples() >= MIN_SAMPLES_FOR_OUTLIER && latency >= outlierMinLatencyNanos) {
+            double median = medianLatency(instance.getServiceId(), stats, now);
+            if (median > 0 && latency > outlierFactor * median) {
+                eject(instance, stats, now, String.format("задержка %.0f мс при медиане %.0f мс",
+                        latency / 1e6, median / 1e6));
+            }
+        }
+    }
+
+    /**
+     * Оценка стоимости запроса к экземпляру: задержка, умноженная на очередь.
+     * Экземпляр без замеров получает среднюю задержку остальных, а давний замер
+     * затухает к ней: иначе реплика, однажды ответившая медленно, больше не
+     * получила бы запросов и не смогла бы показать, что восстановилась.
+     */
+    public double cost(ServiceInstance instance, double defaultLatency, long now) {
+        InstanceStats stats = stats(instance);
+        double latency = stats.latency(now, defaultLatency, decayNanos);
+        return Math.max(latency, 1_000_000) * (stats.inFlight.get() + 1);
+    }
+
+    public double averageLatency(Collection<ServiceInstance> instances) {
+        double sum = 0;
+        int count = 0;
+        for (ServiceInstance instance : instances) {
+            InstanceStats stats = stats(instance);
+            if (stats.samples() > 0) {
+                sum += stats.latency();
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    /** Экземпляр исключен; по истечении срока его задержка забывается. */
+    public boolean isEjected(ServiceInstance instance, long now) {
+        return stats(instance).isEjected(now);
+    }
+
+    private void eject(ServiceInstance instance, InstanceStats stats, long now, String reason) {
+        if (!stats.eject(now, baseEjectionNanos, MAX_EJECTION_MULTIPLIER)) {
+            return;
+        }
+        log.warn("Экземпляр {} {} исключен из балансировки на {} с: {}", instance.getServiceId(), stats.key,
+                (stats.ejectedUntil - now) / 1_000_000_000L, reason);
+        ConcurrentHashMap<String, InstanceStats> instances = services.get(instance.getServiceId());
+        boolean allEjected = instances.values().stream().allMatch(other -> other.isEjected(now));
+        String circuitBreakerName = circuitBreakers.get(instance.getServiceId());
+        ReactiveResilience4JCircuitBreakerFactory factory = circuitBreakerFactory.getIfAvailable();
+        if (allEjected && circuitBreakerName != null && factory != null) {
+            factory.getCircuitBreakerRegistry().find(circuitBreakerName)
+                    .filter(circuitBreaker -> circuitBreaker.getState() == CircuitBreaker.State.CLOSED)
+                    .ifPresent(circuitBreaker -> {
+                        log.warn("Все экземпляры {} исключены, {} переведен в OPEN",
+                                instance.getServiceId(), circuitBreakerName);
+                        circuitBreaker.transitionToOpenState();
+                    });
+        }
+    }
+
+    private double medianLatency(String serviceId, InstanceStats self, long now) {
+        List<Double> latencies = new ArrayList<>();
+        for (InstanceStats other : services.get(serviceId).values()) {
+            if (other != self && other.samples() > 0 && !other.isEjected(now)) {
+                latencies.add(other.latency());
+            }
+        }
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        latencies.sort(null);
+        return latencies.get(latencies.size() / 2);
+    }
+
+    private static String keyOf(ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+
+    public static final class InstanceStats {
+
+        private final String key;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private double latency;
+        private long samples;
+        private long lastSample;
+        private int ejections;
+        private volatile long ejectedUntil;
+        private volatile boolean ejected;
+
+        private InstanceStats(String key) {
+            this.key = key;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public synchronized double latency() {
+            return latency;
+        }
+
+        public synchronized long samples() {
+            return samples;
+        }
+
+        private synchronized double latency(long now, double defaultLatency, long decayNanos) {
+            if (samples == 0) {
+                return defaultLatency;
+            }
+            double weight = Math.exp(-(double) (now - lastSample) / decayNanos);
+            return defaultLatency + (latency - defaultLatency) * weight;
+        }
+
+        /**
+         * Peak-EWMA: рост задержки принимается сразу, снижение — с затуханием
+         * по времени, чтобы пауза GC не забывалась после пары быстрых ответов.
+         */
+        private synchronized void record(long now, long sample, long decayNanos) {
+            if (samples == 0 || sample > latency) {
+                latency = sample;
+            } else {
+                double weight = Math.exp(-(double) (now - lastSample) / decayNanos);
+                latency = latency * weight + sample * (1 - weight);
+            }
+            samples++;
+            lastSample = now;
+        }
+
+        private synchronized boolean eject(long now, long baseNanos, int maxMultiplier) {
+            if (isEjected(now)) {
+                return false;
+            }
+            if (ejections > 0) {
+                // Каждый базовый срок без исключения снимает одну ступень
+                long healthyPeriods = (now - ejectedUntil) / baseNanos;
+                ejections = (int) Math.max(0, ejections - healthyPeriods);
+            }
+            ejections = Math.min(ejections + 1, maxMultiplier);
+            ejectedUntil = now + baseNanos * ejections;
+            ejected = true;
+            return true;
+        }
+
+        private boolean isEjected(long now) {
+            if (!ejected) {
+                return false;
+            }
+            if (now - ejectedUntil < 0) {
+                return true;
+            }
+            synchronized (this) {
+                if (ejected && now - ejectedUntil >= 0) {
+                    // Возвращается без истории: иначе старая задержка не даст ему трафика
+                    ejected = false;
+                    samples = 0;
+                    latency = 0;
+                    consecutiveFailures.set(0);
+                }
+            }
+            return false;
+        }
+    }
+}
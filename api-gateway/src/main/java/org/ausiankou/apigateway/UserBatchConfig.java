@@ -0,0 +1,14 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserBatchConfig {
+
+    @Bean
+    public UserBatchFilter userBatchFilter(@Value("${gateway.user-batch.max-ids:50}") int maxIds) {
+        return new UserBatchFilter(maxIds);
+    }
+}
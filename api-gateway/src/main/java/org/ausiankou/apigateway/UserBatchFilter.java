@@ -0,0 +1,78 @@
+package org.ausiankou.apigateway;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Агрегирующий запрос {@code /api/users/batch?ids=...}: список из N строк
+ * получается одним проходом через шлюз и одним {@code findAllById} в
+ * user-service вместо N запросов {@code /api/users/{id}}.
+ * <p>
+ * id принимаются через запятую и повторяющимся параметром, повторы
+ * отбрасываются, порядок сохраняется. Все id уходят в upstream одним
+ * параметром, поэтому одинаковые списки дают один ключ кэша ответов.
+ * Пустой список, нечисловой id или больше {@code maxIds} id отклоняются
+ * с 400 без обращения к upstream.
+ */
+public class UserBatchFilter implements GatewayFilter {
+
+    public static final String IDS_PARAM = "ids";
+
+    private final int maxIds;
+
+    public UserBatchFilter(int maxIds) {
+        this.maxIds = maxIds;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Set<Long> ids = parseIds(exchange.getRequest().getQueryParams().get(IDS_PARAM));
+        if (ids == null || ids.isEmpty() || ids.size() > maxIds) {
+            exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+            return exchange.getResponse().setComplete();
+        }
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        URI uri = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                .replaceQueryParam(IDS_PARAM, joined)
+                .build(true)
+                .toUri();
+        ServerHttpRequest request = exchange.getRequest().mutate().uri(uri).build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    /** @return id в порядке запроса без повторов или null, если есть нечисловой id */
+    private Set<Long> parseIds(List<String> values) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (values == null) {
+            return ids;
+        }
+        for (String value : values) {
+            for (String id : value.split(",")) {
+                if (id.isBlank()) {
+                    continue;
+                }
+                try {
+                    ids.add(Long.parseLong(id.trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (ids.size() > maxIds) {
+                    // Дальше не разбираем: запрос все равно будет отклонен
+                    return ids;
+                }
+            }
+        }
+        return ids;
+    }
+}
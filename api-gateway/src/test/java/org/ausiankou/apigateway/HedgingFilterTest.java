@@ -0,0 +1,135 @@
+package org.ausiankou.apigateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class HedgingFilterTest {
+
+    private static final String SERVICE = "USER-SERVICE";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration MIN_DELAY = Duration.ofMillis(5);
+    private static final Duration MAX_DELAY = Duration.ofMillis(50);
+
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", SERVICE, "10.0.0.1", 8080, false);
+    private final ServiceInstance fast = new DefaultServiceInstance("fast", SERVICE, "10.0.0.2", 8080, false);
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final GatewayFilterChain chain = exchange -> Mono.error(new AssertionError("GET must be hedged"));
+
+    @Test
+    @DisplayName("Медленный основной запрос хеджируется на другой экземпляр, клиент получает быстрый ответ")
+    void hedgesSlowPrimary() {
+        // Given
+        HedgingFilter filter = filter(new RetryBudget(0.1, 0, 10), slow, fast);
+        MockServerWebExchange exchange = get();
+
+        // When
+        filter.filter(exchange, chain).block(TIMEOUT);
+
+        // Then
+        assertThat(exchange.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("fast");
+        assertThat(callsTo(slow)).isEqualTo(1);
+        assertThat(callsTo(fast)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Без бюджета повторов хедж не отправляется, клиент ждет основной запрос")
+    void skipsHedgeWhenBudgetIsExhausted() {
+        // Given
+        HedgingFilter filter = filter(new RetryBudget(0, 0, 0), slow, fast);
+        MockServerWebExchange exchange = get();
+
+        // When
+        filter.filter(exchange, chain).block(TIMEOUT);
+
+        // Then
+        assertThat(exchange.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("slow");
+        assertThat(callsTo(slow)).isEqualTo(1);
+        assertThat(callsTo(fast)).isZero();
+    }
+
+    @Test
+    @DisplayName("Задержка хеджа стартует с max-delay и после набора замеров опускается к p95, но не ниже min-delay")
+    void adaptsDelayToObservedLatency() {
+        // Given
+        HedgingFilter filter = filter(new RetryBudget(0.1, 0, 10), fast, fast);
+        assertThat(filter.hedgeDelay()).isEqualTo(MAX_DELAY);
+
+        // When: быстрых ответов больше, чем нужно для первого пересчета
+        for (int i = 0; i < 130; i++) {
+            filter.filter(get(), chain).block(TIMEOUT);
+        }
+
+        // Then
+        assertThat(filter.hedgeDelay()).isGreaterThanOrEqualTo(MIN_DELAY).isLessThan(MAX_DELAY);
+    }
+
+    private HedgingFilter filter(RetryBudget budget, ServiceInstance primary, ServiceInstance secondary) {
+        ReactorServiceInstanceLoadBalancer loadBalancer = mock(ReactorServiceInstanceLoadBalancer.class);
+        given(loadBalancer.choose()).willAnswer(invocation -> Mono.just(new DefaultResponse(primary)))
+                .willAnswer(invocation -> Mono.just(new DefaultResponse(secondary)));
+        LoadBalancerClientFactory factory = mock(LoadBalancerClientFactory.class);
+        given(factory.getInstance(eq(SERVICE), eq(ReactorServiceInstanceLoadBalancer.class)))
+                .willReturn(loadBalancer);
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    String host = request.url().getHost();
+                    calls.computeIfAbsent(host, key -> new AtomicInteger()).incrementAndGet();
+                    boolean isSlow = host.equals(slow.getHost());
+                    ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                            .body(isSlow ? "slow" : "fast")
+                            .build();
+                    return Mono.just(response).delayElement(isSlow ? Duration.ofMillis(300) : Duration.ZERO);
+                })
+                .build();
+        return new HedgingFilter(factory, List::of, webClient, budget, tracker(), 0.95,
+                MIN_DELAY, MAX_DELAY, TIMEOUT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UpstreamLatencyTracker tracker() {
+        return new UpstreamLatencyTracker(Duration.ofSeconds(10), 3, 3.0, Duration.ofMillis(50),
+                Duration.ofSeconds(30), Map.of(), mock(ObjectProvider.class));
+    }
+
+    private int callsTo(ServiceInstance instance) {
+        AtomicInteger count = calls.get(instance.getHost());
+        return count != null ? count.get() : 0;
+    }
+
+    private static MockServerWebExchange get() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("users")
+                .uri(URI.create("lb://" + SERVICE))
+                .predicate(request -> true)
+                .build());
+        return exchange;
+    }
+}
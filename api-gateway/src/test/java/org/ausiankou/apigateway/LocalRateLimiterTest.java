@@ -0,0 +1,79 @@
+package org.ausiankou.apigateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final LocalRateLimiter.Config config = new LocalRateLimiter.Config()
+            .setReplenishRate(1)
+            .setBurstCapacity(3);
+
+    @Test
+    @DisplayName("Полная корзина пропускает всплеск до burst-capacity и отклоняет следующий запрос")
+    void allowsBurstUpToCapacity() {
+        // Given
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(config, 0);
+
+        // When / Then
+        assertThat(bucket.tryAcquire(0, 1)).isEqualTo(2);
+        assertThat(bucket.tryAcquire(0, 1)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(0, 1)).isZero();
+        assertThat(bucket.tryAcquire(0, 1)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Токены восстанавливаются со скоростью replenish-rate")
+    void replenishesOverTime() {
+        // Given
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(config, 0);
+        bucket.tryAcquire(0, 3);
+
+        // When / Then
+        assertThat(bucket.tryAcquire(SECOND / 2, 1)).isEqualTo(-1);
+        assertThat(bucket.tryAcquire(SECOND, 1)).isZero();
+    }
+
+    @Test
+    @DisplayName("Запрос дороже burst-capacity отклоняется даже полной корзиной")
+    void rejectsRequestLargerThanCapacity() {
+        // Given
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(config, 0);
+
+        // When / Then
+        assertThat(bucket.tryAcquire(0, 4)).isEqualTo(-1);
+        assertThat(bucket.tryAcquire(0, 3)).isZero();
+    }
+
+    @Test
+    @DisplayName("Удаленный расход опустошает корзину, но не уводит ее в долг")
+    void consumesNoDeeperThanEmpty() {
+        // Given
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(config, 0);
+
+        // When
+        bucket.consume(0, 10);
+
+        // Then
+        assertThat(bucket.tryAcquire(0, 1)).isEqualTo(-1);
+        assertThat(bucket.tryAcquire(SECOND, 1)).isZero();
+    }
+
+    @Test
+    @DisplayName("Корзина снова полна, когда восстановлены все потраченные токены")
+    void becomesFullAfterRefill() {
+        // Given
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(config, 0);
+
+        // When
+        bucket.tryAcquire(0, 2);
+
+        // Then
+        assertThat(bucket.isFull(SECOND)).isFalse();
+        assertThat(bucket.isFull(2 * SECOND)).isTrue();
+    }
+}
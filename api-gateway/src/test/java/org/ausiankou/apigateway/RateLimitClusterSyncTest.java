@@ -0,0 +1,21 @@
+package org.ausiankou.apigateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitClusterSyncTest {
+
+    @Test
+    @DisplayName("Синхронизация лимитов не создается без токена")
+    void requiresToken() {
+        // When / Then
+        assertThatThrownBy(() -> new RateLimitClusterSync(null, null, "api-gateway", "gw-1",
+                Duration.ofMillis(500), " "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("GATEWAY_RATE_LIMIT_SYNC_TOKEN");
+    }
+}
@@ -0,0 +1,158 @@
+package org.ausiankou.apigateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(1024 * 1024, 64 * 1024,
+            Duration.ofMinutes(1), Duration.ofSeconds(5), List.of("Accept"));
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    @DisplayName("Одновременные промахи по одному ключу дают один запрос в upstream")
+    void coalescesConcurrentMisses() {
+        // Given: ответ upstream задерживается, пока не пришел второй запрос
+        Sinks.Empty<Void> gate = Sinks.empty();
+        GatewayFilterChain chain = upstream("{\"id\":1}", gate);
+        MockServerWebExchange first = get("/api/users/1");
+        MockServerWebExchange second = get("/api/users/1");
+
+        // When
+        Mono<Void> leader = filter.filter(first, chain);
+        Mono<Void> follower = filter.filter(second, chain);
+        gate.tryEmitEmpty();
+        Mono.when(leader, follower).block(TIMEOUT);
+
+        // Then
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    @DisplayName("Повторный GET отдается из кэша")
+    void servesRepeatedGetFromCache() {
+        // Given
+        GatewayFilterChain chain = upstream("{\"id\":1}", null);
+        filter.filter(get("/api/users/1"), chain).block(TIMEOUT);
+
+        // When
+        MockServerWebExchange repeated = get("/api/users/1");
+        filter.filter(repeated, chain).block(TIMEOUT);
+
+        // Then
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(repeated.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(filter.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET, начатый до успешного изменения, не возвращает в кэш старый ответ")
+    void discardsResponseStartedBeforeInvalidation() {
+        // Given: GET ушел в upstream до PUT и вернулся после него
+        Sinks.Empty<Void> gate = Sinks.empty();
+        Mono<Void> stale = filter.filter(get("/api/users/1"), upstream("{\"name\":\"old\"}", gate));
+        stale.subscribe();
+
+        // When
+        MockServerWebExchange put = MockServerWebExchange.from(MockServerHttpRequest.put("/api/users/1"));
+        filter.filter(put, exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        }).block(TIMEOUT);
+        gate.tryEmitEmpty();
+
+        // Then
+        assertThat(filter.size()).isZero();
+        MockServerWebExchange fresh = get("/api/users/1");
+        filter.filter(fresh, upstream("{\"name\":\"new\"}", null)).block(TIMEOUT);
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(fresh.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("{\"name\":\"new\"}");
+    }
+
+    @Test
+    @DisplayName("Промах отдает ETag upstream, и с ним следующий запрос получает 304 из кэша")
+    void missCarriesUpstreamEtagForConditionalGet() {
+        // Given
+        GatewayFilterChain chain = upstream("{\"id\":1}", "\"v1\"", null);
+        MockServerWebExchange miss = get("/api/users/1");
+        filter.filter(miss, chain).block(TIMEOUT);
+        String etag = miss.getResponse().getHeaders().getETag();
+
+        // When
+        MockServerWebExchange conditional = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag));
+        filter.filter(conditional, chain).block(TIMEOUT);
+
+        // Then
+        assertThat(miss.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(etag).isEqualTo("\"v1\"");
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(conditional.getResponse().getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Без ETag upstream промах идет без ETag, вычисленный ETag отдается со второго чтения")
+    void computedEtagStartsFromSecondRead() {
+        // Given
+        GatewayFilterChain chain = upstream("{\"id\":1}", null);
+        MockServerWebExchange miss = get("/api/users/1");
+        filter.filter(miss, chain).block(TIMEOUT);
+
+        // When
+        MockServerWebExchange hit = get("/api/users/1");
+        filter.filter(hit, chain).block(TIMEOUT);
+
+        // Then
+        assertThat(miss.getResponse().getHeaders().getETag()).isNull();
+        assertThat(hit.getResponse().getHeaders().getETag()).isNotNull();
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).accept(MediaType.APPLICATION_JSON));
+    }
+
+    private GatewayFilterChain upstream(String body, Sinks.Empty<Void> gate) {
+        return upstream(body, null, gate);
+    }
+
+    /**
+     * Upstream отвечает JSON с {@code etag}, если он задан; если задан
+     * {@code gate}, ответ ждет его завершения.
+     */
+    private GatewayFilterChain upstream(String body, String etag, Sinks.Empty<Void> gate) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (etag != null) {
+                response.getHeaders().setETag(etag);
+            }
+            Mono<Void> write = response.writeWith(Mono.fromSupplier(() ->
+                    response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+            return gate != null ? gate.asMono().then(write) : write;
+        };
+    }
+}
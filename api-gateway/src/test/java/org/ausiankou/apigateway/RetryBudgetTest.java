@@ -0,0 +1,74 @@
+package org.ausiankou.apigateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    @Test
+    @DisplayName("Начальный запас ограничен max-balance, после него повторы отклоняются")
+    void withdrawsUpToMaxBalance() {
+        // Given
+        RetryBudget budget = new RetryBudget(0.1, 0, 2);
+
+        // When / Then
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    @DisplayName("Один повтор оплачивается десятью обычными запросами при ratio 0.1")
+    void depositsRatioPerRequest() {
+        // Given
+        RetryBudget budget = new RetryBudget(0.1, 0, 2);
+        budget.tryWithdraw();
+        budget.tryWithdraw();
+
+        // When
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+
+        // Then
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        // When
+        budget.deposit();
+
+        // Then
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Запас не растет выше max-balance")
+    void capsBalance() {
+        // Given
+        RetryBudget budget = new RetryBudget(1.0, 0, 2);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+
+        // Then
+        assertThat(budget.available()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("При малом трафике бюджет пополняется на min-per-second в секунду")
+    void refillsOverTime() throws InterruptedException {
+        // Given
+        RetryBudget budget = new RetryBudget(0, 20, 1);
+        budget.tryWithdraw();
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+}
@@ -0,0 +1,98 @@
+package org.ausiankou.apigateway;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class UpstreamLatencyTrackerTest {
+
+    private static final String SERVICE = "USER-SERVICE";
+
+    private final ServiceInstance first = new DefaultServiceInstance("a", SERVICE, "10.0.0.1", 8080, false);
+    private final ServiceInstance second = new DefaultServiceInstance("b", SERVICE, "10.0.0.2", 8080, false);
+
+    @Test
+    @DisplayName("Ушедший экземпляр забывается: исключение последнего оставшегося открывает circuit breaker")
+    void forgetsDepartedInstances() {
+        // Given
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("userServiceCB");
+        ReactiveResilience4JCircuitBreakerFactory factory = mock(ReactiveResilience4JCircuitBreakerFactory.class);
+        given(factory.getCircuitBreakerRegistry()).willReturn(registry);
+        UpstreamLatencyTracker tracker = tracker(Duration.ofSeconds(30), Map.of(SERVICE, "userServiceCB"), factory);
+        tracker.retain(List.of(first, second));
+        tracker.isEjected(first, System.nanoTime());
+        tracker.isEjected(second, System.nanoTime());
+
+        // When: второй экземпляр пропал из discovery, первый падает
+        tracker.retain(List.of(first));
+        fail(tracker, first, 3);
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("Срок исключения сокращается после периода без исключений")
+    void ejectionMultiplierDecays() throws InterruptedException {
+        // Given
+        Duration base = Duration.ofMillis(100);
+        UpstreamLatencyTracker tracker = tracker(base, Map.of(), null);
+        fail(tracker, first, 3);
+        Thread.sleep(400);
+
+        // When: повторное исключение после трех базовых сроков без сбоев
+        fail(tracker, first, 3);
+
+        // Then: срок снова базовый, а не двойной
+        long now = System.nanoTime();
+        assertThat(tracker.isEjected(first, now + base.toNanos() / 2)).isTrue();
+        assertThat(tracker.isEjected(first, now + base.toNanos() * 3 / 2)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Повторное исключение без паузы удлиняет срок")
+    void repeatedEjectionGrows() throws InterruptedException {
+        // Given
+        Duration base = Duration.ofMillis(100);
+        UpstreamLatencyTracker tracker = tracker(base, Map.of(), null);
+        fail(tracker, first, 3);
+        Thread.sleep(120);
+
+        // When
+        fail(tracker, first, 3);
+
+        // Then
+        long now = System.nanoTime();
+        assertThat(tracker.isEjected(first, now + base.toNanos() * 3 / 2)).isTrue();
+    }
+
+    private static void fail(UpstreamLatencyTracker tracker, ServiceInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.onStart(instance);
+            tracker.onComplete(instance, 1_000_000, true);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UpstreamLatencyTracker tracker(Duration baseEjection, Map<String, String> circuitBreakers,
+                                                  ReactiveResilience4JCircuitBreakerFactory factory) {
+        ObjectProvider<ReactiveResilience4JCircuitBreakerFactory> provider = mock(ObjectProvider.class);
+        given(provider.getIfAvailable()).willReturn(factory);
+        return new UpstreamLatencyTracker(Duration.ofSeconds(10), 3, 3.0, Duration.ofMillis(50),
+                baseEjection, circuitBreakers, provider);
+    }
+}
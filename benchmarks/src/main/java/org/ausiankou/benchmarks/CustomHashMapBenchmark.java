@@ -0,0 +1,164 @@
+package org.ausiankou.benchmarks;
+
+import org.ausiankou.ConcurrentCustomHashMap;
+import org.ausiankou.CustomHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение {@link CustomHashMap} и {@link ConcurrentCustomHashMap} с
+ * {@link HashMap}/{@link ConcurrentHashMap} на одной и той же выборке ключей.
+ * <p>
+ * {@code get}/{@code remove} измеряют одну операцию на заполненной карте,
+ * {@code put} — заполнение пустой карты всеми ключами.
+ * <pre>
+ * mvn -pl benchmarks -am package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar CustomHashMapBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomHashMapBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "COLLIDING"})
+    private KeyDistribution distribution;
+
+    private Object[] keys;
+    private int cursor;
+
+    private CustomHashMap<Object, Object> customHashMap;
+    private ConcurrentCustomHashMap<Object, Object> concurrentCustomHashMap;
+    private HashMap<Object, Object> hashMap;
+    private ConcurrentHashMap<Object, Object> concurrentHashMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = distribution.keys(size);
+
+        customHashMap = new CustomHashMap<>();
+        concurrentCustomHashMap = new ConcurrentCustomHashMap<>();
+        hashMap = new HashMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        for (Object key : keys) {
+            customHashMap.put(key, key);
+            concurrentCustomHashMap.put(key, key);
+            hashMap.put(key, key);
+            concurrentHashMap.put(key, key);
+        }
+    }
+
+    private Object nextKey() {
+        int i = cursor;
+        cursor = i + 1 == keys.length ? 0 : i + 1;
+        return keys[i];
+    }
+
+    @Benchmark
+    public Object getCustomHashMap() {
+        return customHashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object getConcurrentCustomHashMap() {
+        return concurrentCustomHashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object getHashMap() {
+        return hashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object getConcurrentHashMap() {
+        return concurrentHashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object putAllCustomHashMap() {
+        CustomHashMap<Object, Object> map = new CustomHashMap<>();
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object putAllConcurrentCustomHashMap() {
+        ConcurrentCustomHashMap<Object, Object> map = new ConcurrentCustomHashMap<>();
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object putAllHashMap() {
+        Map<Object, Object> map = new HashMap<>();
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object putAllConcurrentHashMap() {
+        Map<Object, Object> map = new ConcurrentHashMap<>();
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    // remove + put возвращают карту в исходное состояние между вызовами
+
+    @Benchmark
+    public Object removeCustomHashMap() {
+        Object key = nextKey();
+        customHashMap.remove(key);
+        customHashMap.put(key, key);
+        return key;
+    }
+
+    @Benchmark
+    public Object removeConcurrentCustomHashMap() {
+        Object key = nextKey();
+        concurrentCustomHashMap.remove(key);
+        return concurrentCustomHashMap.put(key, key);
+    }
+
+    @Benchmark
+    public Object removeHashMap() {
+        Object key = nextKey();
+        hashMap.remove(key);
+        return hashMap.put(key, key);
+    }
+
+    @Benchmark
+    public Object removeConcurrentHashMap() {
+        Object key = nextKey();
+        concurrentHashMap.remove(key);
+        return concurrentHashMap.put(key, key);
+    }
+}
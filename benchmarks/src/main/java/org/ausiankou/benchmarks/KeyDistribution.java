@@ -0,0 +1,68 @@
+package org.ausiankou.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Наборы ключей для бенчмарков карт.
+ */
+public enum KeyDistribution {
+    /** Последовательные {@code Long}, как идентификаторы пользователей. */
+    SEQUENTIAL {
+        @Override
+        Object[] keys(int size) {
+            Object[] keys = new Object[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = (long) i + 1;
+            }
+            return keys;
+        }
+    },
+    /** Случайные {@code Long} без повторов в младших битах. */
+    RANDOM {
+        @Override
+        Object[] keys(int size) {
+            Random random = new Random(42);
+            Object[] keys = new Object[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextLong();
+            }
+            return keys;
+        }
+    },
+    /** По 64 ключа на одно значение {@code hashCode}: длинные цепочки и деревья в ячейках. */
+    COLLIDING {
+        @Override
+        Object[] keys(int size) {
+            Object[] keys = new Object[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = new CollidingKey(i);
+            }
+            return keys;
+        }
+    };
+
+    abstract Object[] keys(int size);
+
+    static final class CollidingKey implements Comparable<CollidingKey> {
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id >>> 6;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.ausiankou.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.ausiankou.controller.UserModelAssembler;
+import org.ausiankou.dto.UserMapper;
+import org.ausiankou.dto.UserResponseDto;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.events.FileSchemaRegistry;
+import org.ausiankou.events.UserEventSchemas;
+import org.ausiankou.model.User;
+import org.ausiankou.serialization.UserEventBinarySerializer;
+import org.ausiankou.serialization.UserEventDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути user-service: маппинг сущности в DTO, сборка HATEOAS-модели
+ * и сериализация события Kafka: бинарный формат по схеме user-event и прежний {@link JsonSerializer}.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar UserHotPathBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserHotPathBenchmark {
+
+    private final UserMapper userMapper = new UserMapper();
+    private final UserModelAssembler userModelAssembler = new UserModelAssembler();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private JsonSerializer<Object> kafkaSerializer;
+    private UserEventBinarySerializer binarySerializer;
+    private UserEventDeserializer deserializer;
+    private byte[] binaryEvent;
+    private byte[] jsonEvent;
+    private User user;
+    private UserResponseDto dto;
+    private UserKafkaEvent event;
+
+    @Setup
+    public void setUp() {
+        kafkaSerializer = new JsonSerializer<>(objectMapper);
+        user = User.builder()
+                .id(42L)
+                .name("Иван Иванов")
+                .email("ivan@example.com")
+                .age(30)
+                .createdAt(LocalDateTime.of(2024, 1, 15, 10, 30))
+                .build();
+        dto = userMapper.toResponseDto(user);
+        event = new UserKafkaEvent("USER_CREATED", user.getEmail(), user.getName(), user.getId());
+
+        FileSchemaRegistry registry = new FileSchemaRegistry(null, UserEventSchemas.all());
+        binarySerializer = new UserEventBinarySerializer(registry);
+        deserializer = new UserEventDeserializer(registry);
+        binaryEvent = binarySerializer.serialize("user-events", event);
+        jsonEvent = kafkaSerializer.serialize("user-events", event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        kafkaSerializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public UserResponseDto toResponseDto() {
+        return userMapper.toResponseDto(user);
+    }
+
+    @Benchmark
+    public Object toModel() {
+        return userModelAssembler.toModel(dto);
+    }
+
+    @Benchmark
+    public byte[] serializeKafkaEvent() {
+        return kafkaSerializer.serialize("user-events", event);
+    }
+
+    @Benchmark
+    public byte[] writeKafkaEventWithObjectMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] serializeKafkaEventBinary() {
+        return binarySerializer.serialize("user-events", event);
+    }
+
+    @Benchmark
+    public UserKafkaEvent deserializeKafkaEventBinary() {
+        return deserializer.deserialize("user-events", binaryEvent);
+    }
+
+    @Benchmark
+    public UserKafkaEvent deserializeKafkaEventJson() {
+        return deserializer.deserialize("user-events", jsonEvent);
+    }
+}
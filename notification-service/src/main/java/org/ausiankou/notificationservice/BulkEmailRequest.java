@@ -0,0 +1,18 @@
+package org.ausiankou.notificationservice;
+
+import lombok.Data;
+
+/**
+ * Строка NDJSON пакетной рассылки: письмо по шаблону ({@code template},
+ * по умолчанию {@code user-created}) или произвольное, если заданы
+ * {@code subject} и {@code text}.
+ */
+@Data
+public class BulkEmailRequest {
+    private String email;
+    private String username;
+    private String template;
+    private String locale;
+    private String subject;
+    private String text;
+}
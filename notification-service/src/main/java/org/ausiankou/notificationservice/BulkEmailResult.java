@@ -0,0 +1,33 @@
+package org.ausiankou.notificationservice;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итог по одному получателю пакетной рассылки; {@code index} — номер строки
+ * запроса, начиная с 0, с учетом пустых строк (результаты приходят в порядке
+ * завершения).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEmailResult {
+
+    public enum Status {
+        SENT, FAILED, INVALID
+    }
+
+    private int index;
+    private String email;
+    private Status status;
+    private String message;
+
+    public static BulkEmailResult of(int index, String email, Status status) {
+        return new BulkEmailResult(index, email, status, null);
+    }
+
+    public static BulkEmailResult failed(int index, String email, Status status, String message) {
+        return new BulkEmailResult(index, email, status, message);
+    }
+}
@@ -0,0 +1,289 @@
+package org.ausiankou.notificationservice;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетная рассылка из потока NDJSON с потоковым ответом.
+ * <p>
+ * Один поток читает строки запроса, ставит письма в очередь {@link EmailService}
+ * и пишет в ответ результаты по мере доставки. В полете не больше
+ * {@code email.bulk.max-in-flight} писем: когда окно заполнено, чтение тела
+ * приостанавливается до очередного результата, поэтому память не зависит от
+ * размера загрузки, а медленная доставка тормозит клиента через TCP.
+ * <p>
+ * Загрузка держит свой поток до последнего результата, поэтому рассылки идут в
+ * собственном пуле на {@code email.bulk.max-concurrent} потоков без очереди, а
+ * не в общем пуле асинхронных запросов Spring MVC: когда он занят,
+ * {@link #start} отклоняет новую загрузку, и остальные асинхронные запросы
+ * сервиса не ждут чужих рассылок.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkEmailService {
+
+    private static final String DEFAULT_TEMPLATE = EmailService.USER_CREATED;
+    private static final long REJECTED_WAIT_MS = 50;
+    private static final int EMIT_CHUNK_BYTES = 8192;
+
+    private final EmailService emailService;
+    private final JsonMapper jsonMapper;
+
+    @Value("${email.bulk.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${email.bulk.submit-timeout-ms:10000}")
+    private long submitTimeoutMs;
+
+    @Value("${email.bulk.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), task -> {
+                    Thread thread = new Thread(task, "bulk-email-" + threads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Запускает рассылку в пуле пакетных рассылок; результаты уходят клиенту
+     * через возвращенный emitter.
+     *
+     * @throws RejectedExecutionException если все потоки пула заняты другими загрузками
+     */
+    public ResponseBodyEmitter start(InputStream body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        executor.execute(() -> {
+            try {
+                EmitterOutputStream out = new EmitterOutputStream(emitter);
+                send(body, out);
+                out.flush();
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Пакетная рассылка прервана: cause={}", e.toString());
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    public void send(InputStream body, OutputStream out) throws IOException {
+        Window window = new Window(out);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int lines = 0;
+        int requests = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Номер строки считается и для пустых строк: по нему клиент находит свою запись
+            int index = lines++;
+            if (line.isBlank()) {
+                continue;
+            }
+            requests++;
+            while (window.inFlight >= maxInFlight) {
+                window.awaitResult(0);
+            }
+            BulkEmailResult invalid = submit(index, line, window);
+            if (invalid != null) {
+                window.write(invalid);
+            }
+            if (window.writeReady()) {
+                out.flush();
+            }
+        }
+        while (window.inFlight > 0) {
+            window.awaitResult(0);
+        }
+        out.flush();
+        log.info("Пакетная рассылка завершена: total={}, sent={}, notSent={}", requests, window.sent,
+                requests - window.sent);
+    }
+
+    /**
+     * @return результат, если строку не удалось поставить в очередь; иначе
+     * письмо учтено в {@code window} и его результат появится там позже
+     */
+    private BulkEmailResult submit(int index, String line, Window window) throws IOException {
+        BulkEmailRequest request;
+        try {
+            request = jsonMapper.readValue(line, BulkEmailRequest.class);
+        } catch (RuntimeException e) {
+            return BulkEmailResult.failed(index, null, BulkEmailResult.Status.INVALID, "Malformed JSON line");
+        }
+        String email = request.getEmail();
+        if (email == null || email.isBlank() || email.indexOf('@') < 1) {
+            return BulkEmailResult.failed(index, email, BulkEmailResult.Status.INVALID, "Invalid email");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(submitTimeoutMs);
+        while (true) {
+            CompletableFuture<Void> delivery;
+            try {
+                delivery = deliver(request);
+            } catch (IllegalArgumentException e) {
+                return BulkEmailResult.failed(index, email, BulkEmailResult.Status.INVALID, e.getMessage());
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() > deadline) {
+                    return BulkEmailResult.failed(index, email, BulkEmailResult.Status.FAILED, e.getMessage());
+                }
+                // Очередь отправки занята: пока ждем, отдаем клиенту готовые результаты
+                if (window.awaitResult(REJECTED_WAIT_MS)) {
+                    window.out.flush();
+                }
+                continue;
+            }
+            window.inFlight++;
+            delivery.whenComplete((ignored, error) -> window.completed.add(error == null
+                    ? BulkEmailResult.of(index, email, BulkEmailResult.Status.SENT)
+                    : BulkEmailResult.failed(index, email, BulkEmailResult.Status.FAILED, causeOf(error))));
+            return null;
+        }
+    }
+
+    private CompletableFuture<Void> deliver(BulkEmailRequest request) {
+        if (request.getSubject() != null && request.getText() != null) {
+            return emailService.sendEmail(request.getEmail(), request.getSubject(), request.getText());
+        }
+        UserEvent event = new UserEvent();
+        event.setEmail(request.getEmail());
+        event.setUsername(request.getUsername());
+        String template = request.getTemplate() != null ? request.getTemplate() : DEFAULT_TEMPLATE;
+        Locale locale = request.getLocale() != null ? Locale.forLanguageTag(request.getLocale()) : null;
+        return emailService.sendTemplatedEmail(template, locale, event);
+    }
+
+    private static String causeOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    /** Копит вывод {@link #send} и отдает его клиенту кусками: по flush или по мере накопления. */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(EMIT_CHUNK_BYTES);
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            if (buffer.size() >= EMIT_CHUNK_BYTES) {
+                flush();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            buffer.write(bytes, offset, length);
+            if (buffer.size() >= EMIT_CHUNK_BYTES) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer.size() > 0) {
+                emitter.send(buffer.toByteArray(), MediaType.APPLICATION_NDJSON);
+                buffer.reset();
+            }
+        }
+    }
+
+    /**
+     * Состояние одного запроса: письма в полете, готовые результаты и счетчик
+     * отправленных. Все результаты пишутся в ответ только через него, поэтому
+     * каждый забранный из {@code completed} результат уменьшает {@code inFlight}.
+     */
+    private final class Window {
+
+        private final OutputStream out;
+        private final LinkedBlockingQueue<BulkEmailResult> completed = new LinkedBlockingQueue<>();
+        private int inFlight;
+        private int sent;
+
+        private Window(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Ждет результат письма в полете и пишет его; {@code timeoutMs} 0 — без
+         * ограничения.
+         *
+         * @return {@code false}, если за {@code timeoutMs} результата не было
+         */
+        boolean awaitResult(long timeoutMs) throws IOException {
+            BulkEmailResult result;
+            try {
+                result = timeoutMs > 0 ? completed.poll(timeoutMs, TimeUnit.MILLISECONDS) : completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for email delivery", e);
+            }
+            if (result == null) {
+                return false;
+            }
+            inFlight--;
+            write(result);
+            return true;
+        }
+
+        /** @return {@code true}, если что-то было записано */
+        boolean writeReady() throws IOException {
+            boolean wrote = false;
+            BulkEmailResult result;
+            while ((result = completed.poll()) != null) {
+                inFlight--;
+                write(result);
+                wrote = true;
+            }
+            return wrote;
+        }
+
+        void write(BulkEmailResult result) throws IOException {
+            out.write(jsonMapper.writeValueAsBytes(result));
+            out.write('\n');
+            if (result.getStatus() == BulkEmailResult.Status.SENT) {
+                sent++;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.ausiankou.notificationservice;
+
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dlt")
+public class DeadLetterController {
+
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    public DeadLetterController(DeadLetterReplayService deadLetterReplayService) {
+        this.deadLetterReplayService = deadLetterReplayService;
+    }
+
+    @PostMapping("/replay")
+    public String replay(@RequestParam(defaultValue = "1000") int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int replayed = deadLetterReplayService.replay(limit);
+        return "✅ Из DLT переотправлено событий: " + replayed;
+    }
+}
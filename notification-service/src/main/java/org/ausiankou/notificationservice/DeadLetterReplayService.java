@@ -0,0 +1,106 @@
+package org.ausiankou.notificationservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Переотправляет записи из DLT на вход цепочки повторов после устранения
+ * причины сбоя. Позиция чтения DLT хранится в отдельной группе, поэтому каждая
+ * запись переотправляется один раз.
+ * <p>
+ * Заголовки записи ({@code kafka_dlt-*} с исходным топиком, смещением и
+ * причиной сбоя, а также исходные заголовки события) переносятся вместе с
+ * ней. Счетчик попыток цепочки повторов не переносится: переотправленная
+ * запись проходит цепочку заново.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterReplayService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final int MAX_EMPTY_POLLS = 3;
+    private static final Set<String> DROPPED_HEADERS = Set.of(
+            RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS,
+            RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP,
+            RetryTopicHeaders.DEFAULT_HEADER_ORIGINAL_TIMESTAMP,
+            KafkaUtils.KEY_DESERIALIZER_EXCEPTION_HEADER,
+            KafkaUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+
+    private final ConsumerFactory<String, byte[]> deadLetterReplayConsumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final FailedEventRouter failedEventRouter;
+
+    /**
+     * @return число переотправленных записей, не больше {@code limit}
+     */
+    public synchronized int replay(int limit) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(limit));
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer = deadLetterReplayConsumerFactory.createConsumer(
+                null, null, "-replay", overrides)) {
+            consumer.subscribe(List.of(failedEventRouter.deadLetterTopic()));
+            int emptyPolls = 0;
+            while (replayed < limit && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                emptyPolls = 0;
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed == limit) {
+                        break;
+                    }
+                    sends.add(kafkaTemplate.send(new ProducerRecord<>(failedEventRouter.retryTopic(), null,
+                            record.key(), record.value(), replayHeaders(record))));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                // Смещение фиксируется только после подтверждения записи в retry-топик
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(offsets);
+            }
+        }
+        log.info("Переотправка из DLT: topic={}, replayed={}", failedEventRouter.deadLetterTopic(), replayed);
+        return replayed;
+    }
+
+    private static Headers replayHeaders(ConsumerRecord<?, ?> record) {
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!DROPPED_HEADERS.contains(header.key())) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+}
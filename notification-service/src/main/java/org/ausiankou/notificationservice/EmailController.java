@@ -1,39 +1,70 @@
 package org.ausiankou.notificationservice;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class EmailController {
 
     private final EmailService emailService;
+    private final BulkEmailService bulkEmailService;
 
-    public EmailController(EmailService emailService) {
+    public EmailController(EmailService emailService, BulkEmailService bulkEmailService) {
         this.emailService = emailService;
+        this.bulkEmailService = bulkEmailService;
     }
 
     @PostMapping("/send-email")
     public String sendEmail(@RequestParam String to,
                             @RequestParam String subject,
                             @RequestParam String text) {
-        emailService.sendEmail(to, subject, text);
+        emailService.sendEmail(to, subject, text).join();
         return "✅ Email отправлен на адрес: " + to;
     }
 
     @PostMapping("/welcome")
     public String sendWelcomeEmail(@RequestParam String email,
                                    @RequestParam(required = false, defaultValue = "Пользователь") String name) {
-        emailService.sendUserCreatedEmail(email, name);
+        emailService.sendUserCreatedEmail(email, name).join();
         return "✅ Приветственное письмо отправлено на: " + email;
     }
 
     @PostMapping("/goodbye")
     public String sendGoodbyeEmail(@RequestParam String email,
                                    @RequestParam(required = false, defaultValue = "Пользователь") String name) {
-        emailService.sendUserDeletedEmail(email, name);
+        emailService.sendUserDeletedEmail(email, name).join();
         return "✅ Письмо об удалении отправлено на: " + email;
     }
 
+    /**
+     * Пакетная рассылка: тело — NDJSON {@link BulkEmailRequest}, ответ — NDJSON
+     * {@link BulkEmailResult} по мере доставки. Тело читается уже в асинхронной
+     * фазе запроса потоком пула пакетных рассылок, поток контейнера
+     * освобождается сразу. Если все потоки этого пула заняты, ответ — 503.
+     */
+    @PostMapping(value = "/bulk-email",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> sendBulkEmail(InputStream body) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(bulkEmailService.start(body));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
     @GetMapping("/health")
     public String health() {
         return "✅ Сервис уведомлений работает!";
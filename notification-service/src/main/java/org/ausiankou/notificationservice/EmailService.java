@@ -1,49 +1,74 @@
 package org.ausiankou.notificationservice;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
+import org.ausiankou.notificationservice.mail.EmailMessage;
+import org.ausiankou.notificationservice.mail.MailDispatcher;
+import org.ausiankou.notificationservice.template.EmailTemplate;
+import org.ausiankou.notificationservice.template.EmailTemplates;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Формирует письма по шаблонам {@link EmailTemplates} и ставит их в очередь
+ * {@link MailDispatcher}. Методы не ждут доставки: результат каждого письма —
+ * в возвращаемом future, а при переполненной очереди бросается
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class EmailService {
 
-    @Value("${email.mode:console}")
-    private String emailMode;
+    static final String USER_CREATED = "user-created";
+    static final String USER_DELETED = "user-deleted";
+
+    private final MailDispatcher mailDispatcher;
+    private final EmailTemplates emailTemplates;
 
-    public EmailService() {
+    public CompletableFuture<Void> sendEmail(String to, String subject, String text) {
+        return mailDispatcher.submit(new EmailMessage(to, subject, text));
     }
-    public void sendEmail(String to, String subject, String text) {
-        printToConsole(to, subject, text);
+
+    public CompletableFuture<Void> sendUserCreatedEmail(String email, String username) {
+        return mailDispatcher.submit(emailTemplates.get(USER_CREATED).render(eventFor(email, username)));
+    }
+
+    public CompletableFuture<Void> sendUserDeletedEmail(String email, String username) {
+        return mailDispatcher.submit(emailTemplates.get(USER_DELETED).render(eventFor(email, username)));
+    }
+
+    /**
+     * Письмо по шаблону с именем {@code templateName}; {@code locale} null —
+     * локаль по умолчанию.
+     *
+     * @throws IllegalArgumentException если такого шаблона нет
+     */
+    public CompletableFuture<Void> sendTemplatedEmail(String templateName, Locale locale, UserEvent event) {
+        return mailDispatcher.submit(emailTemplates.get(templateName, locale).render(event));
+    }
+
+    /** @return future на каждое событие, в том же порядке */
+    public List<CompletableFuture<Void>> sendUserCreatedEmails(List<UserEvent> events) {
+        return sendBatch(events, USER_CREATED);
     }
 
-    public void sendUserCreatedEmail(String email, String username) {
-        String subject = "Добро пожаловать! Ваш аккаунт создан";
-        String text = String.format(
-                "Здравствуйте, %s! Ваш аккаунт на сайте был успешно создан.",
-                username != null ? username : ""
-        );
-        sendEmail(email, subject, text);
+    /** @return future на каждое событие, в том же порядке */
+    public List<CompletableFuture<Void>> sendUserDeletedEmails(List<UserEvent> events) {
+        return sendBatch(events, USER_DELETED);
     }
 
-    public void sendUserDeletedEmail(String email, String username) {
-        String subject = "Ваш аккаунт был удален";
-        String text = String.format(
-                "Здравствуйте, %s! Ваш аккаунт был удалён.",
-                username != null ? username : ""
-        );
-        sendEmail(email, subject, text);
+    private List<CompletableFuture<Void>> sendBatch(List<UserEvent> events, String templateName) {
+        // Шаблон выбирается один раз на пакет, на событие остается только отрисовка
+        EmailTemplate template = emailTemplates.get(templateName);
+        return mailDispatcher.submitAll(events.stream().map(template::render).toList());
     }
 
-    private void printToConsole(String to, String subject, String text) {
-        System.out.println("\n📧 [DEV MODE] Email:");
-        System.out.println("════════════════════════════════════════");
-        System.out.println("Кому:      " + to);
-        System.out.println("Тема:      " + subject);
-        System.out.println("────────────────────────────────────────");
-        System.out.println("Текст:");
-        System.out.println(text);
-        System.out.println("════════════════════════════════════════\n");
-        log.info("📧 Email (dev mode) отправлен на: {}", to);
+    private static UserEvent eventFor(String email, String username) {
+        UserEvent event = new UserEvent();
+        event.setEmail(email);
+        event.setUsername(username);
+        return event;
     }
-}
\ No newline at end of file
+}
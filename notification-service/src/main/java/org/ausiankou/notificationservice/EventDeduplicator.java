@@ -0,0 +1,177 @@
+package org.ausiankou.notificationservice;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Окно последних {@code notification.dedup.window} идентификаторов событий:
+ * повторная доставка того же {@code eventId} (ретрай продюсера, outbox,
+ * ребалансировка) отбрасывается за O(1) без обращения к базе.
+ * <p>
+ * Окно — кольцевой буфер и хеш-таблица идентификатор → ячейка кольца: новый
+ * идентификатор вытесняет самый старый. {@link #markIfNew} занимает
+ * идентификатор в памяти при получении, {@link #commit} после доставки
+ * письма дописывает его в необязательный
+ * журнал {@code notification.dedup.journal}. При старте журнал заполняет окно,
+ * поэтому дубли отсекаются и после перезапуска. Недоставленные события в
+ * журнал не попадают; {@link KafkaConsumer} подтверждает смещения пакета
+ * только после доставки или передачи его событий на повтор, поэтому после
+ * сбоя такие события будут прочитаны и обработаны снова. Журнал сбрасывается
+ * на диск раз в {@code notification.dedup.flush-interval-ms}: письма,
+ * доставленные за последний интервал перед сбоем, могут уйти повторно.
+ * Журнал сжимается до последних {@code window} строк, когда вырастает вдвое
+ * больше.
+ * <p>
+ * События без {@code eventId} (от старых версий user-service) не дедуплицируются.
+ */
+@Component
+@Slf4j
+public class EventDeduplicator {
+
+    private final int capacity;
+    private final String[] ring;
+    private final Map<String, Integer> window;
+    private int next;
+
+    private final Path journalPath;
+    private BufferedWriter journal;
+    private int journalLines;
+
+    public EventDeduplicator(@Value("${notification.dedup.window:100000}") int capacity,
+                             @Value("${notification.dedup.journal:}") String journal) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("notification.dedup.window must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ring = new String[capacity];
+        this.window = new HashMap<>((int) (capacity / 0.75f) + 1);
+        this.journalPath = journal.isBlank() ? null : Path.of(journal);
+        if (journalPath != null) {
+            restore();
+        }
+    }
+
+    /**
+     * @return {@code false}, если событие с таким идентификатором уже было в окне
+     */
+    public synchronized boolean markIfNew(String eventId) {
+        if (eventId == null) {
+            return true;
+        }
+        if (window.putIfAbsent(eventId, next) != null) {
+            return false;
+        }
+        String evicted = ring[next];
+        if (evicted != null) {
+            window.remove(evicted, next);
+        }
+        ring[next] = eventId;
+        next = (next + 1) % capacity;
+        return true;
+    }
+
+    /** Фиксирует доставленное событие в журнале. */
+    public synchronized void commit(String eventId) {
+        if (eventId == null || journal == null) {
+            return;
+        }
+        try {
+            journal.write(eventId);
+            journal.newLine();
+            if (++journalLines > 2 * capacity) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось записать журнал дедупликации: path={}, cause={}", journalPath, e.toString());
+        }
+    }
+
+    /**
+     * Освобождает идентификатор события, которое не доставлено и будет прочитано
+     * заново. Ячейка кольца тоже освобождается: иначе при повторной пометке
+     * события его старая ячейка, дойдя до вытеснения, убрала бы из окна и новую
+     * пометку, и повтор события прошел бы раньше срока.
+     */
+    public synchronized void forget(String eventId) {
+        Integer slot = eventId != null ? window.remove(eventId) : null;
+        if (slot != null) {
+            ring[slot] = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dedup.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            log.warn("Не удалось сбросить журнал дедупликации: path={}, cause={}", journalPath, e.toString());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть журнал дедупликации: path={}, cause={}", journalPath, e.toString());
+        }
+        journal = null;
+    }
+
+    private void restore() {
+        try {
+            Path parent = journalPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (Files.exists(journalPath)) {
+                List<String> ids = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+                // Последние записи журнала — самые свежие, их и оставляем в окне
+                for (String id : ids.subList(Math.max(0, ids.size() - capacity), ids.size())) {
+                    if (!id.isBlank()) {
+                        markIfNew(id);
+                    }
+                }
+                journalLines = ids.size();
+            }
+            journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("Журнал дедупликации загружен: path={}, ids={}", journalPath, window.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open dedup journal " + journalPath, e);
+        }
+    }
+
+    /** Оставляет хвост журнала размером с окно: только доставленные события, в порядке записи. */
+    private void compact() throws IOException {
+        journal.close();
+        List<String> ids = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        List<String> tail = ids.subList(Math.max(0, ids.size() - capacity), ids.size());
+        Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        Files.write(temp, tail, StandardCharsets.UTF_8);
+        Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        journalLines = tail.size();
+    }
+}
@@ -0,0 +1,100 @@
+package org.ausiankou.notificationservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Уводит проблемные события из основного потока, чтобы одна запись не
+ * останавливала партицию: временные сбои — в цепочку retry-топиков,
+ * неисправимые (нечитаемые, неизвестного типа) — сразу в DLT.
+ * <p>
+ * Оба метода возвращаются только после подтверждения записи брокером, поэтому
+ * смещения пакета фиксируются, лишь когда событие уже сохранено в другом топике.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FailedEventRouter {
+
+    static final String DLT_SUFFIX = "-dlt";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @Value("${notification.retry.topic:user-events-notification}")
+    private String retryTopic;
+
+    public void retryLater(List<ConsumerRecord<String, UserEvent>> records, Exception cause) {
+        CompletableFuture<?>[] sends = records.stream()
+                .map(record -> kafkaTemplate.send(new ProducerRecord<>(retryTopic, null,
+                        record.key(), record.value(), originHeaders(record, cause))))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(sends).join();
+        log.warn("События переданы на повтор: topic={}, count={}, cause={}",
+                retryTopic, records.size(), cause.toString());
+    }
+
+    /**
+     * Для писем, не доставленных после постановки в очередь: событие уходит на
+     * повтор без блокировки вызывающего потока. Пакет, из которого пришло
+     * событие, подтверждается только после завершения возвращенного future.
+     *
+     * @return future подтверждения записи брокером
+     */
+    public CompletableFuture<?> retryAfterDeliveryFailure(ConsumerRecord<String, UserEvent> record, Throwable error) {
+        Exception cause = unwrap(error);
+        log.warn("Письмо не доставлено, событие передается на повтор: topic={}, partition={}, offset={}, cause={}",
+                record.topic(), record.partition(), record.offset(), cause.toString());
+        return kafkaTemplate.send(new ProducerRecord<>(retryTopic, null, record.key(), record.value(),
+                originHeaders(record, cause)));
+    }
+
+    public void deadLetter(ConsumerRecord<?, ?> record, Exception cause) {
+        deadLetterPublishingRecoverer.accept(record, cause);
+        log.error("Событие отправлено в DLT: topic={}, partition={}, offset={}, cause={}",
+                record.topic(), record.partition(), record.offset(), cause.toString());
+    }
+
+    public String deadLetterTopic() {
+        return retryTopic + DLT_SUFFIX;
+    }
+
+    public String retryTopic() {
+        return retryTopic;
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Exception exception ? exception : new RuntimeException(cause);
+    }
+
+    private static Headers originHeaders(ConsumerRecord<?, ?> record, Exception cause) {
+        Headers headers = new RecordHeaders();
+        headers.add(KafkaHeaders.ORIGINAL_TOPIC, bytes(record.topic()));
+        // Кодировка как у DeadLetterPublishingRecoverer: он сохраняет эти заголовки до DLT
+        headers.add(KafkaHeaders.ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        headers.add(KafkaHeaders.ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        headers.add(KafkaHeaders.EXCEPTION_FQCN, bytes(cause.getClass().getName()));
+        headers.add(KafkaHeaders.EXCEPTION_MESSAGE, bytes(String.valueOf(cause.getMessage())));
+        return headers;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
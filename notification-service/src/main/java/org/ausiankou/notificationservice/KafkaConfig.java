@@ -0,0 +1,191 @@
+package org.ausiankou.notificationservice;
+
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka в notification-service настраивается явно: автоконфигурация Kafka в
+ * Spring Boot 4 вынесена в отдельный модуль, которого у сервиса нет.
+ */
+@Configuration
+@EnableKafka
+@EnableKafkaRetryTopic
+public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id:notification-group}")
+    private String groupId;
+
+    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
+    private String autoOffsetReset;
+
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${spring.kafka.consumer.properties.user-events.schema-registry.dir:}")
+    private String schemaRegistryDir;
+
+    @Value("${spring.kafka.listener.concurrency:6}")
+    private int concurrency;
+
+    @Value("${notification.retry.topic:user-events-notification}")
+    private String retryTopic;
+
+    @Value("${notification.retry.partitions:6}")
+    private int retryPartitions;
+
+    @Bean
+    public KafkaAdmin kafkaAdmin() {
+        return new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    /** Вход в цепочку повторов: сюда слушатель пакетов перекладывает события, которые не удалось отправить. */
+    @Bean
+    public NewTopic notificationRetryTopic() {
+        return TopicBuilder.name(retryTopic)
+                .partitions(retryPartitions)
+                .build();
+    }
+
+    /** Планировщик, которым retry-топики возобновляют партиции после задержки. */
+    @Bean
+    public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("notification-retry-");
+        scheduler.initialize();
+        return new RetryTopicSchedulerWrapper(scheduler);
+    }
+
+    @Bean
+    public ConsumerFactory<String, UserEvent> consumerFactory() {
+        Map<String, Object> config = consumerConfig();
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        config.put(UserEventDeserializer.SCHEMA_REGISTRY_DIR, schemaRegistryDir);
+        // Нечитаемая запись приходит в слушатель как null с исключением в заголовке и уходит в DLT
+        return new DefaultKafkaConsumerFactory<>(config,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new UserEventDeserializer()));
+    }
+
+    /**
+     * Основная фабрика: пакетный слушатель, смещения подтверждает сам слушатель,
+     * когда письма пакета доставлены или переданы на повтор (ack-mode manual).
+     * Сбои отдельных событий слушатель сам уводит в retry-топики и DLT; до
+     * обработчика ошибок доходит только недоступность Kafka при такой
+     * переотправке, и тогда пакет повторяется без пропуска записей.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, UserEvent> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        ExponentialBackOff backOff = new ExponentialBackOff(1_000, 2.0);
+        backOff.setMaxInterval(30_000);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+
+    /** Фабрика для retry-топиков: по одной записи, повторы и DLT настраивает {@code @RetryableTopic}. */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> retryListenerContainerFactory(
+            ConsumerFactory<String, UserEvent> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        return factory;
+    }
+
+    /** Читает DLT как есть, без десериализации значения, для переотправки. */
+    @Bean
+    public ConsumerFactory<String, byte[]> deadLetterReplayConsumerFactory() {
+        Map<String, Object> config = consumerConfig();
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-dlt-replay");
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * События уходят в retry-топики JSON-ом, нечитаемые записи и записи из DLT —
+     * исходными байтами.
+     */
+    @Bean
+    public ProducerFactory<String, Object> producerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        JacksonJsonSerializer<UserEvent> jsonSerializer = new JacksonJsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        Map<Class<?>, Serializer<?>> valueSerializers = Map.of(
+                UserEvent.class, jsonSerializer,
+                byte[].class, new ByteArraySerializer());
+        return new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new DelegatingByTypeSerializer(valueSerializers));
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * Публикует в DLT записи, которые повторять бессмысленно. Заголовки
+     * kafka_dlt-* несут исходные топик, партицию, смещение и исключение.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        String deadLetterTopic = retryTopic + FailedEventRouter.DLT_SUFFIX;
+        // Партицию выбирает продюсер: у DLT их может быть меньше, чем у исходного топика
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(deadLetterTopic, -1));
+    }
+
+    private Map<String, Object> consumerConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return config;
+    }
+}
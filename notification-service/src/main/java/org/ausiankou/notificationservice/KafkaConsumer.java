@@ -2,44 +2,275 @@ package org.ausiankou.notificationservice;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumer {
 
+    static final String LISTENER_ID = "user-events-listener";
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(KafkaConsumer.class);
+
     private final EmailService emailService;
+    private final FailedEventRouter failedEventRouter;
+    private final EventDeduplicator eventDeduplicator;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    /** Партиции, которые нужно вернуть к смещению потерянного события при следующем вызове. */
+    private final Map<TopicPartition, Long> rewinds = new ConcurrentHashMap<>();
+
+    /**
+     * Получает все записи одного poll разом. События группируются по типу и
+     * передаются в {@link EmailService} одним вызовом на группу.
+     * <p>
+     * Письма только ставятся в очередь отправки, SMTP слушатель не ждет.
+     * Смещения пакета фиксируются (ack-mode manual), только когда каждое его
+     * событие доставлено или подтверждено брокером в retry-топике или DLT; до
+     * этого партиции пакета стоят на паузе, поэтому пакеты одной партиции
+     * подтверждаются по порядку, а остальные партиции читаются дальше. Если
+     * событие не удалось ни доставить, ни переложить в retry-топик, пакет не
+     * подтверждается, а партиция при следующем вызове возвращается к этому
+     * событию; без новых записей оно будет прочитано заново после рестарта или
+     * ребалансировки. Доставка — at-least-once: письма пакета, прерванного
+     * сбоем процесса, могут уйти повторно, если журнал дедупликации выключен.
+     * <p>
+     * Повторно доставленные события (тот же {@code eventId}) отбрасываются
+     * {@link EventDeduplicator} до отправки.
+     * Пакет не блокируется на плохих записях: нечитаемые и неизвестного типа
+     * уходят в DLT; группа, не принятая переполненной очередью, и письма,
+     * не доставленные позже, — в retry-топики.
+     */
+    @KafkaListener(id = LISTENER_ID,
+            topics = "${kafka.topic.user-events:user-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency:6}",
+            batch = "true")
+    public void listen(List<ConsumerRecord<String, UserEvent>> records, Acknowledgment acknowledgment,
+                       Consumer<?, ?> consumer) {
+        long started = System.nanoTime();
+        Set<TopicPartition> rewound = applyRewinds(consumer);
+        PendingBatch pending = new PendingBatch(acknowledgment, partitionsOf(records), !rewound.isEmpty());
+        Map<String, List<ConsumerRecord<String, UserEvent>>> byType = new LinkedHashMap<>();
+        int deadLettered = 0;
+        int duplicates = 0;
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            if (rewound.contains(new TopicPartition(record.topic(), record.partition()))) {
+                // Эти записи придут снова вслед за возвращенным событием
+                continue;
+            }
+            if (record.value() == null) {
+                DeserializationException error = SerializationUtils.getExceptionFromHeader(record,
+                        KafkaUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+                if (error != null) {
+                    failedEventRouter.deadLetter(record, error);
+                    deadLettered++;
+                }
+                continue;
+            }
+            String eventType = String.valueOf(record.value().getEventType());
+            if ("USER_CACHE_EVICT".equals(eventType)) {
+                // Служебное событие инвалидации кэша между репликами user-service
+                continue;
+            }
+            if (!eventDeduplicator.markIfNew(record.value().getEventId())) {
+                duplicates++;
+                continue;
+            }
+            byType.computeIfAbsent(eventType, type -> new ArrayList<>()).add(record);
+        }
+
+        int sent = 0;
+        int retried = 0;
+        List<List<ConsumerRecord<String, UserEvent>>> notHandedOff = new ArrayList<>(byType.values());
+        try {
+            for (Map.Entry<String, List<ConsumerRecord<String, UserEvent>>> group : byType.entrySet()) {
+                List<ConsumerRecord<String, UserEvent>> batch = group.getValue();
+                Function<List<UserEvent>, List<CompletableFuture<Void>>> sender = switch (group.getKey()) {
+                    case "USER_CREATED" -> emailService::sendUserCreatedEmails;
+                    case "USER_DELETED" -> emailService::sendUserDeletedEmails;
+                    default -> null;
+                };
+                if (sender == null) {
+                    UnknownEventTypeException error = new UnknownEventTypeException(group.getKey());
+                    batch.forEach(record -> failedEventRouter.deadLetter(record, error));
+                    deadLettered += batch.size();
+                    notHandedOff.remove(batch);
+                    continue;
+                }
+                List<CompletableFuture<Void>> deliveries;
+                try {
+                    deliveries = sender.apply(batch.stream().map(ConsumerRecord::value).toList());
+                } catch (RejectedExecutionException e) {
+                    // Очередь отправки переполнена: группа ждет в retry-топике, а не в памяти
+                    failedEventRouter.retryLater(batch, e);
+                    retried += batch.size();
+                    notHandedOff.remove(batch);
+                    continue;
+                }
+                notHandedOff.remove(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    track(batch.get(i), deliveries.get(i), pending);
+                }
+                sent += batch.size();
+            }
+        } catch (RuntimeException e) {
+            // Пакет будет повторен: события, отмеченные в окне, но не переданные дальше,
+            // иначе были бы приняты за дубли
+            notHandedOff.forEach(batch -> batch.forEach(record -> eventDeduplicator.forget(record.value().getEventId())));
+            pending.abandon();
+            throw e;
+        }
+        pending.seal();
+
+        log.info("Пакет событий обработан: size={}, queued={}, retried={}, deadLettered={}, duplicates={}, durationMs={}",
+                records.size(), sent, retried, deadLettered, duplicates, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Пакет ждет письмо, пока оно не доставлено или не подтверждено брокером
+     * в retry-топике.
+     */
+    private void track(ConsumerRecord<String, UserEvent> record, CompletableFuture<Void> delivery, PendingBatch pending) {
+        pending.expect();
+        delivery.whenComplete((ignored, error) -> {
+            if (error == null) {
+                eventDeduplicator.commit(record.value().getEventId());
+                pending.done();
+                return;
+            }
+            failedEventRouter.retryAfterDeliveryFailure(record, error).whenComplete((result, sendError) -> {
+                if (sendError == null) {
+                    pending.done();
+                } else {
+                    lost(record, sendError);
+                    pending.fail();
+                }
+            });
+        });
+    }
+
+    /** Событие не доставлено и не попало в retry-топик: партиция вернется к нему. */
+    private void lost(ConsumerRecord<String, UserEvent> record, Throwable error) {
+        log.error("Событие не доставлено и не передано на повтор, будет прочитано заново: topic={}, partition={}, offset={}",
+                record.topic(), record.partition(), record.offset(), error);
+        eventDeduplicator.forget(record.value().getEventId());
+        rewinds.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+    }
+
+    private Set<TopicPartition> applyRewinds(Consumer<?, ?> consumer) {
+        if (rewinds.isEmpty()) {
+            return Set.of();
+        }
+        Set<TopicPartition> rewound = new HashSet<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            Long offset = rewinds.remove(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+                rewound.add(partition);
+                log.warn("Партиция возвращена к непереданному событию: partition={}, offset={}", partition, offset);
+            }
+        }
+        return rewound;
+    }
+
+    private static Set<TopicPartition> partitionsOf(List<ConsumerRecord<String, UserEvent>> records) {
+        Set<TopicPartition> partitions = new HashSet<>();
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            partitions.add(new TopicPartition(record.topic(), record.partition()));
+        }
+        return partitions;
+    }
+
+    /**
+     * Ожидание доставки событий одного пакета. Слушатель держит одну единицу
+     * счетчика до {@link #seal()}, поэтому пакет не завершится, пока в нем еще
+     * ставятся письма. Последнее завершение подтверждает пакет (если ни одно
+     * событие не потеряно) и снимает партиции с паузы.
+     */
+    private final class PendingBatch {
+
+        private final Acknowledgment acknowledgment;
+        private final Set<TopicPartition> partitions;
+        private final AtomicInteger remaining = new AtomicInteger(1);
+        private final AtomicBoolean failed;
+        private volatile boolean paused;
+
+        PendingBatch(Acknowledgment acknowledgment, Set<TopicPartition> partitions, boolean rewound) {
+            this.acknowledgment = acknowledgment;
+            this.partitions = partitions;
+            // Пакет с возвращенной партицией не подтверждается: его смещения ушли бы дальше события
+            this.failed = new AtomicBoolean(rewound);
+        }
+
+        void expect() {
+            remaining.incrementAndGet();
+        }
+
+        void done() {
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void fail() {
+            failed.set(true);
+            done();
+        }
+
+        /** Слушатель поставил все письма пакета. */
+        void seal() {
+            if (remaining.get() > 1) {
+                paused = true;
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+                if (container != null) {
+                    partitions.forEach(container::pausePartition);
+                }
+            }
+            done();
+        }
+
+        /** Слушатель упал: пакет будет повторен и не должен подтверждаться этим объектом. */
+        void abandon() {
+            failed.set(true);
+            done();
+        }
 
-    @KafkaListener(topics = "${kafka.topic.user-events:user-events}",
-            groupId = "${spring.kafka.consumer.group-id}")
-    public void listen(UserEvent event) {
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("📥 ПОЛУЧЕНО ИЗ KAFKA:");
-        System.out.println("=".repeat(50));
-        System.out.println("Тип события: " + event.getEventType());
-        System.out.println("Email: " + event.getEmail());
-        System.out.println("Имя: " + event.getUsername());
-        System.out.println("ID пользователя: " + event.getUserId());
-        System.out.println("=".repeat(50));
-
-        log.info("Получено сообщение из Kafka: {}", event);
-
-        if ("USER_CREATED".equals(event.getEventType())) {
-            String message = String.format(
-                    "Здравствуйте, %s! Ваш аккаунт на сайте был успешно создан.",
-                    event.getUsername()
-            );
-            emailService.sendEmail(event.getEmail(), "Аккаунт создан", message);
-        } else if ("USER_DELETED".equals(event.getEventType())) {
-            String message = String.format(
-                    "Здравствуйте, %s! Ваш аккаунт был удалён.",
-                    event.getUsername()
-            );
-            emailService.sendEmail(event.getEmail(), "Аккаунт удален", message);
-        } else {
-            System.out.println("⚠️ Неизвестный тип события: " + event.getEventType());
+        private void finish() {
+            if (!failed.get()) {
+                acknowledgment.acknowledge();
+            }
+            if (paused) {
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+                if (container != null) {
+                    partitions.forEach(container::resumePartition);
+                }
+            }
         }
     }
 }
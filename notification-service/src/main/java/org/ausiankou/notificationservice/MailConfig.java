@@ -0,0 +1,111 @@
+package org.ausiankou.notificationservice;
+
+import org.ausiankou.notificationservice.mail.ConsoleMailTransport;
+import org.ausiankou.notificationservice.mail.DomainRateLimiter;
+import org.ausiankou.notificationservice.mail.FileMailTransport;
+import org.ausiankou.notificationservice.mail.MailDispatcher;
+import org.ausiankou.notificationservice.mail.MailTransport;
+import org.ausiankou.notificationservice.mail.SmtpMailTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class MailConfig {
+
+    /** console — печать в stdout, file — mbox-файл, smtp — реальная отправка. */
+    @Value("${email.mode:console}")
+    private String emailMode;
+
+    @Value("${email.queue.capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${email.queue.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${email.workers:8}")
+    private int workers;
+
+    @Value("${email.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.rate-limit.per-domain:50}")
+    private double perDomainRate;
+
+    @Value("${email.rate-limit.burst:50}")
+    private int burst;
+
+    /** Переопределения лимита: {@code gmail.com=20,yandex.ru=10}. */
+    @Value("${email.rate-limit.domains:}")
+    private String domainRates;
+
+    @Value("${email.file.path:mail-outbox/notifications.mbox}")
+    private String filePath;
+
+    @Value("${email.file.fsync:false}")
+    private boolean fileFsync;
+
+    @Value("${email.smtp.host:localhost}")
+    private String smtpHost;
+
+    @Value("${email.smtp.port:25}")
+    private int smtpPort;
+
+    @Value("${email.smtp.username:}")
+    private String smtpUsername;
+
+    @Value("${email.smtp.password:}")
+    private String smtpPassword;
+
+    @Value("${email.smtp.starttls:false}")
+    private boolean smtpStarttls;
+
+    @Value("${email.smtp.ssl:false}")
+    private boolean smtpSsl;
+
+    @Value("${email.smtp.from:noreply@localhost}")
+    private String smtpFrom;
+
+    @Value("${email.smtp.pool-size:4}")
+    private int smtpPoolSize;
+
+    @Value("${email.smtp.timeout-ms:10000}")
+    private int smtpTimeoutMs;
+
+    @Bean(destroyMethod = "")
+    public MailTransport mailTransport() {
+        return switch (emailMode.toLowerCase()) {
+            case "console" -> new ConsoleMailTransport();
+            case "file" -> new FileMailTransport(Path.of(filePath), fileFsync);
+            case "smtp" -> new SmtpMailTransport(new SmtpMailTransport.Settings(smtpHost, smtpPort,
+                    smtpUsername, smtpPassword, smtpStarttls, smtpSsl, smtpFrom, smtpPoolSize, smtpTimeoutMs));
+            default -> throw new IllegalArgumentException("Unknown email.mode: " + emailMode);
+        };
+    }
+
+    /** Транспорт закрывает диспетчер, после того как дошлет очередь. */
+    @Bean
+    public MailDispatcher mailDispatcher(MailTransport mailTransport) {
+        DomainRateLimiter rateLimiter = new DomainRateLimiter(perDomainRate, parseDomainRates(domainRates), burst);
+        return new MailDispatcher(mailTransport, rateLimiter, queueCapacity, workers, batchSize, offerTimeoutMs);
+    }
+
+    private static Map<String, Double> parseDomainRates(String value) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid email.rate-limit.domains entry: " + entry);
+            }
+            rates.put(parts[0].trim().toLowerCase(), Double.parseDouble(parts[1].trim()));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,73 @@
+package org.ausiankou.notificationservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.BackOff;
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Повторы неотправленных писем вне основного потока. Событие проходит топики
+ * {@code <retry>-retry-0..N} с экспоненциально растущей задержкой (партиция
+ * ретрай-топика ставится на паузу до срока, основной топик при этом не ждет),
+ * после последней попытки попадает в {@code <retry>-dlt} вместе с заголовками
+ * kafka_dlt-* об исходной записи и исключении.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetryListener {
+
+    private final EmailService emailService;
+    private final EventDeduplicator eventDeduplicator;
+
+    @RetryableTopic(attempts = "${notification.retry.attempts:4}",
+            backOff = @BackOff(delayString = "${notification.retry.initial-delay-ms:1000}",
+                    multiplierString = "${notification.retry.multiplier:4.0}",
+                    maxDelayString = "${notification.retry.max-delay-ms:60000}"),
+            numPartitions = "${notification.retry.partitions:6}",
+            kafkaTemplate = "kafkaTemplate",
+            listenerContainerFactory = "retryListenerContainerFactory",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = FailedEventRouter.DLT_SUFFIX,
+            dltStrategy = DltStrategy.FAIL_ON_ERROR,
+            exclude = UnknownEventTypeException.class)
+    @KafkaListener(topics = "${notification.retry.topic:user-events-notification}",
+            containerFactory = "retryListenerContainerFactory",
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void retry(UserEvent event) {
+        CompletableFuture<Void> delivery = switch (String.valueOf(event.getEventType())) {
+            case "USER_CREATED" -> emailService.sendUserCreatedEmail(event.getEmail(), event.getUsername());
+            case "USER_DELETED" -> emailService.sendUserDeletedEmail(event.getEmail(), event.getUsername());
+            default -> throw new UnknownEventTypeException(event.getEventType());
+        };
+        // Здесь ждем доставки: исход письма решает, нужен ли следующий повтор
+        try {
+            delivery.join();
+            eventDeduplicator.commit(event.getEventId());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @DltHandler
+    public void deadLetter(ConsumerRecord<String, UserEvent> record,
+                           @Header(name = KafkaHeaders.DLT_EXCEPTION_FQCN, required = false) String exception,
+                           @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String message) {
+        log.error("Событие в DLT: topic={}, partition={}, offset={}, key={}, exception={}, message={}",
+                record.topic(), record.partition(), record.offset(), record.key(), exception, message);
+    }
+}
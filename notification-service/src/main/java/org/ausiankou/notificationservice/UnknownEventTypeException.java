@@ -0,0 +1,9 @@
+package org.ausiankou.notificationservice;
+
+/** Тип события, для которого нет письма; повтор не поможет, запись сразу уходит в DLT. */
+public class UnknownEventTypeException extends RuntimeException {
+
+    public UnknownEventTypeException(String eventType) {
+        super("Unknown event type: " + eventType);
+    }
+}
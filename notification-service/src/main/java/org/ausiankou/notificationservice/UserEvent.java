@@ -8,4 +8,5 @@ public class UserEvent {
     private String email;
     private String username;
     private Long userId;
+    private String eventId;
 }
\ No newline at end of file
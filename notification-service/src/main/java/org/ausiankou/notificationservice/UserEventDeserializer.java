@@ -0,0 +1,79 @@
+package org.ausiankou.notificationservice;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.ausiankou.events.BinaryRecordCodec;
+import org.ausiankou.events.FileSchemaRegistry;
+import org.ausiankou.events.GenericRecord;
+import org.ausiankou.events.Schema;
+import org.ausiankou.events.UserEventSchemas;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Читает {@link UserEvent} из user-events: бинарные записи по схеме user-event
+ * (любой версии из реестра) и JSON как запасной формат.
+ */
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    public static final String SCHEMA_REGISTRY_DIR = "user-events.schema-registry.dir";
+
+    private static final Schema SCHEMA = UserEventSchemas.CURRENT;
+    private static final int EVENT_TYPE = SCHEMA.positionOf(UserEventSchemas.EVENT_TYPE);
+    private static final int EMAIL = SCHEMA.positionOf(UserEventSchemas.EMAIL);
+    private static final int USERNAME = SCHEMA.positionOf(UserEventSchemas.USERNAME);
+    private static final int USER_ID = SCHEMA.positionOf(UserEventSchemas.USER_ID);
+    private static final int EVENT_ID = SCHEMA.positionOf(UserEventSchemas.EVENT_ID);
+
+    private BinaryRecordCodec codec;
+    private final JacksonJsonDeserializer<UserEvent> jsonDeserializer;
+
+    public UserEventDeserializer() {
+        this.jsonDeserializer = new JacksonJsonDeserializer<>(UserEvent.class, false);
+        this.jsonDeserializer.ignoreTypeHeaders();
+        this.codec = new BinaryRecordCodec(new FileSchemaRegistry(null, UserEventSchemas.all()));
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object dir = configs.get(SCHEMA_REGISTRY_DIR);
+        if (dir != null && !dir.toString().isBlank()) {
+            codec = new BinaryRecordCodec(new FileSchemaRegistry(Path.of(dir.toString()), UserEventSchemas.all()));
+        }
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!BinaryRecordCodec.isBinary(data)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+        try {
+            GenericRecord record = codec.decode(data, SCHEMA);
+            UserEvent event = new UserEvent();
+            event.setEventType((String) record.get(EVENT_TYPE));
+            event.setEmail((String) record.get(EMAIL));
+            event.setUsername((String) record.get(USERNAME));
+            event.setUserId((Long) record.get(USER_ID));
+            event.setEventId((String) record.get(EVENT_ID));
+            return event;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to decode binary user event", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,30 @@
+package org.ausiankou.notificationservice.mail;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Режим разработки: письма печатаются в stdout. Пакет выводится одной
+ * записью, чтобы потоки отправки не чередовали строки.
+ */
+@Slf4j
+public class ConsoleMailTransport implements MailTransport {
+
+    @Override
+    public void send(List<EmailMessage> messages) {
+        StringBuilder out = new StringBuilder(messages.size() * 320);
+        for (EmailMessage message : messages) {
+            out.append("\n📧 [DEV MODE] Email:\n")
+                    .append("════════════════════════════════════════\n")
+                    .append("Кому:      ").append(message.to()).append('\n')
+                    .append("Тема:      ").append(message.subject()).append('\n')
+                    .append("────────────────────────────────────────\n")
+                    .append("Текст:\n")
+                    .append(message.text()).append('\n')
+                    .append("════════════════════════════════════════\n");
+        }
+        System.out.print(out);
+        log.info("📧 Email (dev mode) отправлены: count={}", messages.size());
+    }
+}
@@ -0,0 +1,67 @@
+package org.ausiankou.notificationservice.mail;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает темп отправки на каждый домен получателя, чтобы почтовые
+ * провайдеры не отвечали отказами и не снижали репутацию отправителя.
+ * <p>
+ * Лимит — GCRA («ведро с жетонами» без фонового пополнения): на каждое письмо
+ * приходится {@code 1 / rate} секунды, и разрешено опережение расписания не
+ * больше чем на {@code burst} писем. {@link #reserve} резервирует место и
+ * возвращает, сколько до него осталось, но не ждет: потоки-отправители общие
+ * для всех доменов, и ожидание одного домена не должно задерживать остальные.
+ */
+public class DomainRateLimiter {
+
+    private final double defaultRate;
+    private final Map<String, Double> domainRates;
+    private final int burst;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultRate писем в секунду на домен; 0 и меньше — без ограничения
+     */
+    public DomainRateLimiter(double defaultRate, Map<String, Double> domainRates, int burst) {
+        this.defaultRate = defaultRate;
+        this.domainRates = Map.copyOf(domainRates);
+        this.burst = Math.max(1, burst);
+    }
+
+    /**
+     * Резервирует место для {@code permits} писем на домен.
+     *
+     * @return через сколько наносекунд от {@code now} пакет можно отправить;
+     *         0 и меньше — сразу
+     */
+    public long reserve(String domain, int permits, long now) {
+        double rate = domainRates.getOrDefault(domain, defaultRate);
+        if (rate <= 0) {
+            return 0;
+        }
+        return buckets.computeIfAbsent(domain, d -> new Bucket((long) (TimeUnit.SECONDS.toNanos(1) / rate)))
+                .reserve(permits, now);
+    }
+
+    private final class Bucket {
+        private final long intervalNanos;
+        private long theoreticalArrival;
+        private boolean started;
+
+        private Bucket(long intervalNanos) {
+            this.intervalNanos = Math.max(1, intervalNanos);
+        }
+
+        /** @return сколько ждать до момента, когда пакет укладывается в лимит */
+        synchronized long reserve(int permits, long now) {
+            if (!started || theoreticalArrival - now < 0) {
+                theoreticalArrival = now;
+                started = true;
+            }
+            theoreticalArrival += permits * intervalNanos;
+            return theoreticalArrival - now - burst * intervalNanos;
+        }
+    }
+}
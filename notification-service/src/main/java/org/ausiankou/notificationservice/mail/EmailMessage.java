@@ -0,0 +1,17 @@
+package org.ausiankou.notificationservice.mail;
+
+/**
+ * Письмо в очереди отправки; {@code html} — необязательная HTML-версия текста.
+ */
+public record EmailMessage(String to, String subject, String text, String html) {
+
+    public EmailMessage(String to, String subject, String text) {
+        this(to, subject, text, null);
+    }
+
+    /** Домен получателя в нижнем регистре — ключ лимита отправки. */
+    public String domain() {
+        int at = to == null ? -1 : to.lastIndexOf('@');
+        return at < 0 ? "" : to.substring(at + 1).toLowerCase();
+    }
+}
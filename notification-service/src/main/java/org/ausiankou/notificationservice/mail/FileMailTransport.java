@@ -0,0 +1,78 @@
+package org.ausiankou.notificationservice.mail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Складывает письма в файл формата mbox — для стендов и нагрузочных тестов
+ * без SMTP. Пакет дописывается одной операцией записи.
+ */
+public class FileMailTransport implements MailTransport {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean fsync;
+
+    public FileMailTransport(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open mail sink " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void send(List<EmailMessage> messages) {
+        String date = ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        StringBuilder out = new StringBuilder(messages.size() * 256);
+        for (EmailMessage message : messages) {
+            out.append("From notification-service ").append(date).append('\n')
+                    .append("To: ").append(message.to()).append('\n')
+                    .append("Subject: ").append(message.subject()).append('\n')
+                    .append('\n');
+            // Строки тела, начинающиеся с "From ", экранируются по правилам mbox
+            for (String line : message.text().split("\n", -1)) {
+                if (line.startsWith("From ")) {
+                    out.append('>');
+                }
+                out.append(line).append('\n');
+            }
+            out.append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new MailDeliveryException("Failed to write " + messages.size() + " messages to " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // файл больше не используется
+        }
+    }
+}
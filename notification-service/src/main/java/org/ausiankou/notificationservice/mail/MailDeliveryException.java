@@ -0,0 +1,8 @@
+package org.ausiankou.notificationservice.mail;
+
+public class MailDeliveryException extends RuntimeException {
+
+    public MailDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,207 @@
+package org.ausiankou.notificationservice.mail;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная доставка писем: ограниченная очередь и пул потоков-отправителей.
+ * <p>
+ * {@link #submitAll} только ставит письма в очередь и сразу возвращает
+ * future на каждое письмо, поэтому вызывающий поток (слушатель Kafka) не ждет
+ * SMTP. Если очередь заполнена и место не освободилось за
+ * {@code offerTimeoutMs}, пакет целиком отклоняется с
+ * {@link RejectedExecutionException} — частично поставленных пакетов нет.
+ * <p>
+ * Отправитель забирает из очереди до {@code batchSize} писем, группирует их
+ * по домену, резервирует место в {@link DomainRateLimiter} и передает группу в
+ * {@link MailTransport} одним вызовом. Группа, которой еще рано, откладывается
+ * до своего времени, а отправитель берется за следующие письма: один домен с
+ * низким лимитом не занимает потоки, общие для всех доменов. Отложенные
+ * письма занимают место в очереди до доставки, поэтому их число ограничено
+ * той же емкостью.
+ */
+@Slf4j
+public class MailDispatcher implements AutoCloseable {
+
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final MailTransport transport;
+    private final DomainRateLimiter rateLimiter;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final DelayQueue<Deferred> deferred = new DelayQueue<>();
+    private final Semaphore capacity;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public MailDispatcher(MailTransport transport, DomainRateLimiter rateLimiter,
+                          int queueCapacity, int workerCount, int batchSize, long offerTimeoutMs) {
+        this.transport = transport;
+        this.rateLimiter = rateLimiter;
+        this.capacity = new Semaphore(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drain, "mail-sender-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public CompletableFuture<Void> submit(EmailMessage message) {
+        return submitAll(List.of(message)).get(0);
+    }
+
+    public List<CompletableFuture<Void>> submitAll(List<EmailMessage> messages) {
+        if (!running) {
+            throw new RejectedExecutionException("Mail dispatcher is shut down");
+        }
+        try {
+            if (!capacity.tryAcquire(messages.size(), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Mail queue is full, rejected " + messages.size() + " messages");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for mail queue", e);
+        }
+        List<CompletableFuture<Void>> results = new ArrayList<>(messages.size());
+        for (EmailMessage message : messages) {
+            Pending pending = new Pending(message, new CompletableFuture<>());
+            queue.add(pending);
+            results.add(pending.result());
+        }
+        return results;
+    }
+
+    /** Письма, ожидающие отправки, включая отложенные лимитом домена. */
+    public int queued() {
+        int count = queue.size();
+        for (Deferred group : deferred) {
+            count += group.pending().size();
+        }
+        return count;
+    }
+
+    /**
+     * Перестает принимать письма, дает отправителям дослать очередь в пределах
+     * {@code timeoutMs}, остальные письма завершает ошибкой.
+     */
+    public void shutdown(long timeoutMs) {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.forEach(Thread::interrupt);
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        // DelayQueue отдает через poll/drainTo только наступившие; забираем все
+        for (Deferred group : deferred) {
+            left.addAll(group.pending());
+        }
+        deferred.clear();
+        RejectedExecutionException shutDown = new RejectedExecutionException("Mail dispatcher is shut down");
+        left.forEach(p -> p.result().completeExceptionally(shutDown));
+        transport.close();
+    }
+
+    @Override
+    public void close() {
+        shutdown(10_000);
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                Deferred due = deferred.poll();
+                if (due != null) {
+                    deliver(due.domain(), due.pending());
+                    continue;
+                }
+                Pending first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                Map<String, List<Pending>> byDomain = new LinkedHashMap<>();
+                for (Pending pending : batch) {
+                    byDomain.computeIfAbsent(pending.message().domain(), d -> new ArrayList<>()).add(pending);
+                }
+                byDomain.forEach(this::schedule);
+            } catch (InterruptedException e) {
+                batch.forEach(p -> p.result().completeExceptionally(e));
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Очередь ждем не дольше, чем до срока ближайшей отложенной группы. */
+    private long pollTimeoutNanos() {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MS);
+        Deferred next = deferred.peek();
+        return next != null ? Math.max(1, Math.min(timeout, next.getDelay(TimeUnit.NANOSECONDS))) : timeout;
+    }
+
+    private void schedule(String domain, List<Pending> group) {
+        long now = System.nanoTime();
+        long waitNanos = rateLimiter.reserve(domain, group.size(), now);
+        if (waitNanos > 0) {
+            deferred.add(new Deferred(domain, group, now + waitNanos));
+        } else {
+            deliver(domain, group);
+        }
+    }
+
+    private void deliver(String domain, List<Pending> group) {
+        try {
+            transport.send(group.stream().map(Pending::message).toList());
+            group.forEach(p -> p.result().complete(null));
+        } catch (RuntimeException e) {
+            log.warn("Ошибка доставки писем: domain={}, count={}, cause={}", domain, group.size(), e.toString());
+            group.forEach(p -> p.result().completeExceptionally(e));
+        } finally {
+            capacity.release(group.size());
+        }
+    }
+
+    private record Pending(EmailMessage message, CompletableFuture<Void> result) {
+    }
+
+    /** Группа писем, место для которой в лимите домена наступит в {@code dueNanos}. */
+    private record Deferred(String domain, List<Pending> pending, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Deferred) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.ausiankou.notificationservice.mail;
+
+import java.util.List;
+
+/**
+ * Способ доставки писем; реализация выбирается свойством {@code email.mode}.
+ * Вызывается из потоков {@link MailDispatcher} параллельно, пакетами писем
+ * на один домен.
+ */
+public interface MailTransport extends AutoCloseable {
+
+    /**
+     * Доставляет весь пакет или бросает {@link MailDeliveryException}; при
+     * ошибке часть писем пакета могла уже уйти.
+     */
+    void send(List<EmailMessage> messages);
+
+    @Override
+    default void close() {
+    }
+}
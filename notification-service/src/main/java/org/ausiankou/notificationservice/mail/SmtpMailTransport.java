@@ -0,0 +1,136 @@
+package org.ausiankou.notificationservice.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Отправка через SMTP с пулом открытых соединений. Соединение (TCP, TLS,
+ * EHLO, AUTH) открывается один раз и переиспользуется: пакет писем уходит по
+ * нему подряд, без повторного рукопожатия на каждое письмо. Соединение, на
+ * котором случилась ошибка, закрывается и в пул не возвращается.
+ */
+@Slf4j
+public class SmtpMailTransport implements MailTransport {
+
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final InternetAddress from;
+    private final Semaphore connections;
+    private final BlockingQueue<Transport> idle;
+
+    public SmtpMailTransport(Settings settings) {
+        Properties properties = new Properties();
+        String protocol = settings.ssl() ? "smtps" : "smtp";
+        properties.put("mail.transport.protocol", protocol);
+        properties.put("mail." + protocol + ".auth", String.valueOf(!settings.username().isEmpty()));
+        properties.put("mail." + protocol + ".starttls.enable", String.valueOf(settings.starttls()));
+        properties.put("mail." + protocol + ".connectiontimeout", String.valueOf(settings.timeoutMs()));
+        properties.put("mail." + protocol + ".timeout", String.valueOf(settings.timeoutMs()));
+        properties.put("mail." + protocol + ".writetimeout", String.valueOf(settings.timeoutMs()));
+        this.session = Session.getInstance(properties);
+        this.host = settings.host();
+        this.port = settings.port();
+        this.username = settings.username().isEmpty() ? null : settings.username();
+        this.password = settings.password().isEmpty() ? null : settings.password();
+        try {
+            this.from = new InternetAddress(settings.from());
+        } catch (MessagingException e) {
+            throw new IllegalArgumentException("Invalid sender address: " + settings.from(), e);
+        }
+        this.connections = new Semaphore(settings.poolSize());
+        this.idle = new ArrayBlockingQueue<>(settings.poolSize());
+    }
+
+    @Override
+    public void send(List<EmailMessage> messages) {
+        connections.acquireUninterruptibly();
+        Transport transport = null;
+        try {
+            transport = borrow();
+            for (EmailMessage message : messages) {
+                MimeMessage mime = toMime(message);
+                transport.sendMessage(mime, mime.getAllRecipients());
+            }
+            idle.offer(transport);
+            transport = null;
+        } catch (MessagingException e) {
+            throw new MailDeliveryException("SMTP delivery failed for " + messages.size() + " messages", e);
+        } finally {
+            closeQuietly(transport);
+            connections.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            closeQuietly(transport);
+        }
+    }
+
+    private Transport borrow() throws MessagingException {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            if (transport.isConnected()) {
+                return transport;
+            }
+            closeQuietly(transport);
+        }
+        transport = session.getTransport();
+        transport.connect(host, port, username, password);
+        log.debug("Открыто SMTP-соединение: host={}, port={}", host, port);
+        return transport;
+    }
+
+    private MimeMessage toMime(EmailMessage message) throws MessagingException {
+        MimeMessage mime = new MimeMessage(session);
+        mime.setFrom(from);
+        mime.setRecipients(Message.RecipientType.TO, new Address[] {new InternetAddress(message.to())});
+        mime.setSubject(message.subject(), StandardCharsets.UTF_8.name());
+        if (message.html() == null) {
+            mime.setText(message.text(), StandardCharsets.UTF_8.name());
+            return mime;
+        }
+        // Почтовый клиент покажет HTML, а при его отсутствии — текст
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText(message.text(), StandardCharsets.UTF_8.name());
+        MimeBodyPart html = new MimeBodyPart();
+        html.setText(message.html(), StandardCharsets.UTF_8.name(), "html");
+        mime.setContent(new MimeMultipart("alternative", text, html));
+        return mime;
+    }
+
+    private static void closeQuietly(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+            // соединение уже не используется
+        }
+    }
+
+    public record Settings(String host, int port, String username, String password, boolean starttls,
+                           boolean ssl, String from, int poolSize, int timeoutMs) {
+    }
+}
@@ -0,0 +1,106 @@
+package org.ausiankou.notificationservice.template;
+
+import org.ausiankou.notificationservice.UserEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Шаблон, разобранный один раз в план отрисовки: литералы и между ними
+ * обращения к полям {@link UserEvent}. Отрисовка — один проход по массивам с
+ * записью в {@link StringBuilder} заранее рассчитанного размера, без
+ * регулярных выражений, поиска по карте и промежуточных строк.
+ * <p>
+ * Подстановки записываются как {@code {{username}}}; неизвестное имя —
+ * ошибка компиляции, а не пустое место в письме.
+ */
+public final class CompiledTemplate {
+
+    private static final int ESTIMATED_VALUE_LENGTH = 24;
+
+    static final Map<String, Function<UserEvent, Object>> VARIABLES = Map.of(
+            "username", UserEvent::getUsername,
+            "email", UserEvent::getEmail,
+            "userId", UserEvent::getUserId,
+            "eventType", UserEvent::getEventType);
+
+    private final String[] literals;
+    private final Function<UserEvent, Object>[] values;
+    private final boolean html;
+    private final int estimatedLength;
+
+    private CompiledTemplate(String[] literals, Function<UserEvent, Object>[] values, boolean html) {
+        this.literals = literals;
+        this.values = values;
+        this.html = html;
+        int length = values.length * ESTIMATED_VALUE_LENGTH;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * @param html экранировать подставляемые значения как HTML
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledTemplate compile(String source, boolean html) {
+        List<String> literals = new ArrayList<>();
+        List<Function<UserEvent, Object>> values = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            }
+            String name = source.substring(open + 2, close).trim();
+            Function<UserEvent, Object> value = VARIABLES.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}, expected one of "
+                        + VARIABLES.keySet());
+            }
+            literals.add(source.substring(position, open));
+            values.add(value);
+            position = close + 2;
+        }
+        return new CompiledTemplate(literals.toArray(String[]::new), values.toArray(Function[]::new), html);
+    }
+
+    public String render(UserEvent event) {
+        StringBuilder out = new StringBuilder(estimatedLength);
+        out.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i].apply(event);
+            if (value != null) {
+                if (html) {
+                    appendEscaped(out, value.toString());
+                } else {
+                    out.append(value);
+                }
+            }
+            out.append(literals[i + 1]);
+        }
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.ausiankou.notificationservice.template;
+
+import org.ausiankou.notificationservice.UserEvent;
+import org.ausiankou.notificationservice.mail.EmailMessage;
+
+/**
+ * Письмо одного вида на одном языке: тема, текст и необязательная HTML-версия.
+ */
+public record EmailTemplate(CompiledTemplate subject, CompiledTemplate text, CompiledTemplate html) {
+
+    public EmailMessage render(UserEvent event) {
+        return new EmailMessage(event.getEmail(), subject.render(event), text.render(event),
+                html != null ? html.render(event) : null);
+    }
+}
@@ -0,0 +1,175 @@
+package org.ausiankou.notificationservice.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Каталог шаблонов писем. Файлы {@code <имя>[_<локаль>].txt} (первая строка —
+ * {@code Subject: ...}, после пустой строки — текст) и необязательные
+ * {@code <имя>[_<локаль>].html} читаются из classpath {@code email-templates/},
+ * а затем из каталога {@code email.templates.dir}, если он задан: одноименные
+ * файлы каталога переопределяют встроенные.
+ * <p>
+ * Все шаблоны компилируются при загрузке и подменяются разом вместе с кэшем
+ * разрешения локалей — одной ссылкой на неизменяемый снимок, поэтому поиск
+ * никогда не смешивает две версии. Шаблон с ошибкой не загружается, и
+ * остаются предыдущие версии. {@link #reloadIfChanged()}
+ * по расписанию перечитывает каталог, когда в нем меняется состав или время
+ * изменения файлов: шаблоны правятся в репозитории конфигурации, смонтированном
+ * в этот каталог, без перезапуска сервиса.
+ */
+@Component
+@Slf4j
+public class EmailTemplates {
+
+    private static final String CLASSPATH_LOCATION = "classpath*:email-templates/*.*";
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    private final Path directory;
+    private final Locale defaultLocale;
+    private volatile Snapshot snapshot = new Snapshot(Map.of());
+    private volatile String directoryStamp = "";
+
+    public EmailTemplates(@Value("${email.templates.dir:}") String directory,
+                          @Value("${email.templates.default-locale:ru}") Locale defaultLocale) {
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.defaultLocale = defaultLocale;
+        reload();
+    }
+
+    /**
+     * Шаблон для локали с откатом {@code en_US -> en -> локаль по умолчанию ->
+     * без локали}. Результат кэшируется до следующей перезагрузки.
+     */
+    public EmailTemplate get(String name, Locale locale) {
+        Locale effective = locale != null ? locale : defaultLocale;
+        Snapshot current = snapshot;
+        return current.resolved().computeIfAbsent(name + '|' + effective,
+                key -> resolve(current.templates(), name, effective));
+    }
+
+    public EmailTemplate get(String name) {
+        return get(name, defaultLocale);
+    }
+
+    @Scheduled(fixedDelayString = "${email.templates.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (directory != null && !directoryStamp.equals(stampOf(directory))) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        String stamp = directory != null ? stampOf(directory) : "";
+        Map<String, String> sources = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_LOCATION)) {
+                sources.put(resource.getFilename(), resource.getContentAsString(StandardCharsets.UTF_8));
+            }
+            if (directory != null && Files.isDirectory(directory)) {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        sources.put(file.getFileName().toString(), Files.readString(file));
+                    }
+                }
+            }
+            Map<String, EmailTemplate> compiled = compile(sources);
+            snapshot = new Snapshot(compiled);
+            log.info("Шаблоны писем загружены: count={}, dir={}", compiled.size(), directory);
+        } catch (IOException | RuntimeException e) {
+            if (snapshot.templates().isEmpty()) {
+                throw new IllegalStateException("Failed to load email templates", e);
+            }
+            log.error("Шаблоны писем не перезагружены, остаются прежние: dir={}, cause={}", directory, e.toString());
+        }
+        directoryStamp = stamp;
+    }
+
+    private EmailTemplate resolve(Map<String, EmailTemplate> templates, String name, Locale locale) {
+        for (String candidate : new String[] {
+                name + '_' + locale, name + '_' + locale.getLanguage(),
+                name + '_' + defaultLocale, name + '_' + defaultLocale.getLanguage(), name}) {
+            EmailTemplate template = templates.get(candidate);
+            if (template != null) {
+                return template;
+            }
+        }
+        throw new IllegalArgumentException("No email template " + name + " for locale " + locale);
+    }
+
+    private static Map<String, EmailTemplate> compile(Map<String, String> sources) {
+        Map<String, EmailTemplate> compiled = new HashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            String fileName = source.getKey();
+            if (!fileName.endsWith(".txt")) {
+                continue;
+            }
+            String key = fileName.substring(0, fileName.length() - ".txt".length());
+            try {
+                String text = source.getValue().replace("\r\n", "\n");
+                int headerEnd = text.indexOf("\n\n");
+                if (!text.startsWith(SUBJECT_PREFIX) || headerEnd < 0) {
+                    throw new IllegalArgumentException("expected '" + SUBJECT_PREFIX + " ...' and a blank line");
+                }
+                String html = sources.get(key + ".html");
+                compiled.put(key, new EmailTemplate(
+                        CompiledTemplate.compile(text.substring(SUBJECT_PREFIX.length(), headerEnd).trim(), false),
+                        CompiledTemplate.compile(stripTrailingNewline(text.substring(headerEnd + 2)), false),
+                        html != null ? CompiledTemplate.compile(html, true) : null));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid email template " + fileName + ": " + e.getMessage(), e);
+            }
+        }
+        return compiled;
+    }
+
+    /** Шаблоны одной загрузки и найденные по ним шаблоны для локалей. */
+    private record Snapshot(Map<String, EmailTemplate> templates, Map<String, EmailTemplate> resolved) {
+
+        Snapshot(Map<String, EmailTemplate> templates) {
+            this(Map.copyOf(templates), new ConcurrentHashMap<>());
+        }
+    }
+
+    private static String stripTrailingNewline(String body) {
+        return body.endsWith("\n") ? body.substring(0, body.length() - 1) : body;
+    }
+
+    private static String stampOf(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return "";
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            StringBuilder stamp = new StringBuilder();
+            files.sorted().forEach(file -> stamp.append(file.getFileName()).append('@')
+                    .append(lastModified(file)).append(';'));
+            return stamp.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.ausiankou.notificationservice;
+
+import org.ausiankou.notificationservice.mail.DomainRateLimiter;
+import org.ausiankou.notificationservice.mail.EmailMessage;
+import org.ausiankou.notificationservice.mail.MailDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class BulkEmailServiceTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(1_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Переполненная очередь отправки не подвешивает запрос: каждое письмо получает результат")
+    void completesWhenDispatcherIsSaturated() {
+        // Given: очередь на одно письмо, медленная доставка, окно запроса больше очереди
+        dispatcher = new MailDispatcher(this::slowSend, new DomainRateLimiter(0, Map.of(), 1), 1, 1, 1, 1);
+        BulkEmailService service = service(dispatcher, 100, 10_000);
+        String body = IntStream.range(0, 30)
+                .mapToObj(i -> "{\"email\":\"user" + i + "@example.com\",\"subject\":\"s\",\"text\":\"t\"}")
+                .collect(Collectors.joining("\n"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                service.send(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out));
+
+        // Then
+        List<BulkEmailResult> results = results(out);
+        assertThat(results).hasSize(30);
+        assertThat(results).extracting(BulkEmailResult::getStatus).containsOnly(BulkEmailResult.Status.SENT);
+        assertThat(results).extracting(BulkEmailResult::getIndex).doesNotHaveDuplicates();
+        assertThat(delivered).hasValue(30);
+    }
+
+    @Test
+    @DisplayName("Некорректные строки отмечаются INVALID, остальные письма отправляются; index — номер строки")
+    void reportsInvalidLines() throws Exception {
+        // Given
+        dispatcher = new MailDispatcher(messages -> delivered.addAndGet(messages.size()),
+                new DomainRateLimiter(0, Map.of(), 1), 10, 1, 10, 100);
+        BulkEmailService service = service(dispatcher, 2, 1_000);
+        String body = """
+                {"email":"a@example.com","subject":"s","text":"t"}
+                not json
+
+                {"email":"broken","subject":"s","text":"t"}
+                {"email":"b@example.com","subject":"s","text":"t"}
+                """;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        service.send(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        // Then
+        Map<Integer, BulkEmailResult.Status> statuses = results(out).stream()
+                .collect(Collectors.toMap(BulkEmailResult::getIndex, BulkEmailResult::getStatus));
+        assertThat(statuses).containsExactlyInAnyOrderEntriesOf(Map.of(
+                0, BulkEmailResult.Status.SENT,
+                1, BulkEmailResult.Status.INVALID,
+                3, BulkEmailResult.Status.INVALID,
+                4, BulkEmailResult.Status.SENT));
+    }
+
+    @Test
+    @DisplayName("Загрузка сверх max-concurrent отклоняется, а не ждет свободного потока")
+    void rejectsUploadWhenBulkPoolIsBusy() throws Exception {
+        // Given: одна загрузка читает тело, которое клиент еще не дослал
+        dispatcher = new MailDispatcher(messages -> delivered.addAndGet(messages.size()),
+                new DomainRateLimiter(0, Map.of(), 1), 10, 1, 10, 100);
+        BulkEmailService service = service(dispatcher, 10, 1_000);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        service.startExecutor();
+        PipedOutputStream client = new PipedOutputStream();
+        service.start(new PipedInputStream(client));
+
+        try {
+            // When / Then
+            assertThatThrownBy(() -> service.start(new ByteArrayInputStream(new byte[0])))
+                    .isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            client.close();
+            service.stopExecutor();
+        }
+    }
+
+    private BulkEmailService service(MailDispatcher dispatcher, int maxInFlight, long submitTimeoutMs) {
+        BulkEmailService service = new BulkEmailService(new EmailService(dispatcher, null), jsonMapper);
+        ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(service, "submitTimeoutMs", submitTimeoutMs);
+        return service;
+    }
+
+    private void slowSend(List<EmailMessage> messages) {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delivered.addAndGet(messages.size());
+    }
+
+    private List<BulkEmailResult> results(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> jsonMapper.readValue(line, BulkEmailResult.class))
+                .toList();
+    }
+}
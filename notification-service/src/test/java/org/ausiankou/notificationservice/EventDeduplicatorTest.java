@@ -0,0 +1,104 @@
+package org.ausiankou.notificationservice;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventDeduplicatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Повтор события в пределах окна отбрасывается")
+    void rejectsDuplicateWithinWindow() {
+        // Given
+        EventDeduplicator deduplicator = new EventDeduplicator(3, "");
+
+        // When / Then
+        assertThat(deduplicator.markIfNew("e-1")).isTrue();
+        assertThat(deduplicator.markIfNew("e-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Самый старый идентификатор вытесняется из заполненного окна")
+    void evictsOldestWhenWindowIsFull() {
+        // Given
+        EventDeduplicator deduplicator = new EventDeduplicator(2, "");
+        deduplicator.markIfNew("e-1");
+        deduplicator.markIfNew("e-2");
+
+        // When
+        deduplicator.markIfNew("e-3");
+
+        // Then
+        assertThat(deduplicator.markIfNew("e-1")).isTrue();
+        assertThat(deduplicator.markIfNew("e-3")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Забытое событие снова принимается как новое")
+    void forgottenEventIsNewAgain() {
+        // Given
+        EventDeduplicator deduplicator = new EventDeduplicator(3, "");
+        deduplicator.markIfNew("e-1");
+
+        // When
+        deduplicator.forget("e-1");
+
+        // Then
+        assertThat(deduplicator.markIfNew("e-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Забытое и снова помеченное событие держится в окне полный срок")
+    void reMarkedEventKeepsFullWindow() {
+        // Given
+        EventDeduplicator deduplicator = new EventDeduplicator(3, "");
+        deduplicator.markIfNew("A");
+        deduplicator.forget("A");
+        deduplicator.markIfNew("A");
+
+        // When: кольцо доходит до ячейки первой пометки
+        deduplicator.markIfNew("B");
+        deduplicator.markIfNew("C");
+
+        // Then
+        assertThat(deduplicator.markIfNew("A")).isFalse();
+    }
+
+    @Test
+    @DisplayName("После перезапуска отсекаются только доставленные события")
+    void restoresOnlyCommittedEventsFromJournal() {
+        // Given
+        String journal = tempDir.resolve("dedup.log").toString();
+        EventDeduplicator deduplicator = new EventDeduplicator(10, journal);
+        deduplicator.markIfNew("delivered");
+        deduplicator.commit("delivered");
+        deduplicator.markIfNew("undelivered");
+        deduplicator.close();
+
+        // When
+        EventDeduplicator restarted = new EventDeduplicator(10, journal);
+
+        // Then
+        assertThat(restarted.markIfNew("delivered")).isFalse();
+        assertThat(restarted.markIfNew("undelivered")).isTrue();
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("События без идентификатора не дедуплицируются")
+    void passesEventsWithoutId() {
+        // Given
+        EventDeduplicator deduplicator = new EventDeduplicator(3, "");
+        deduplicator.markIfNew(null);
+
+        // When / Then
+        assertThat(deduplicator.markIfNew(null)).isTrue();
+    }
+}
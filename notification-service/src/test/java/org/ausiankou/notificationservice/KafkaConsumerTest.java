@@ -0,0 +1,143 @@
+package org.ausiankou.notificationservice;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("user-events", 0);
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private FailedEventRouter failedEventRouter;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private Consumer<?, ?> consumer;
+
+    private KafkaConsumer kafkaConsumer;
+
+    @BeforeEach
+    void setUp() {
+        kafkaConsumer = new KafkaConsumer(emailService, failedEventRouter,
+                new EventDeduplicator(100, ""), listenerRegistry);
+    }
+
+    @Test
+    @DisplayName("Смещения подтверждаются только после доставки письма, партиция на это время на паузе")
+    void acknowledgesAfterDelivery() {
+        // Given
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        given(emailService.sendUserCreatedEmails(anyList())).willReturn(List.of(delivery));
+        given(listenerRegistry.getListenerContainer(KafkaConsumer.LISTENER_ID)).willReturn(container);
+
+        // When
+        kafkaConsumer.listen(List.of(record(5, "e-1")), acknowledgment, consumer);
+
+        // Then
+        verify(acknowledgment, never()).acknowledge();
+        verify(container).pausePartition(PARTITION);
+
+        // When
+        delivery.complete(null);
+
+        // Then
+        verify(acknowledgment).acknowledge();
+        verify(container).resumePartition(PARTITION);
+    }
+
+    @Test
+    @DisplayName("Недоставленное письмо подтверждается после записи события в retry-топик")
+    void acknowledgesAfterRetryPublish() {
+        // Given
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        CompletableFuture<Object> publish = new CompletableFuture<>();
+        given(emailService.sendUserCreatedEmails(anyList())).willReturn(List.of(delivery));
+        given(listenerRegistry.getListenerContainer(KafkaConsumer.LISTENER_ID)).willReturn(container);
+        given(failedEventRouter.retryAfterDeliveryFailure(any(), any())).willAnswer(invocation -> publish);
+        kafkaConsumer.listen(List.of(record(5, "e-1")), acknowledgment, consumer);
+
+        // When
+        delivery.completeExceptionally(new IllegalStateException("smtp down"));
+
+        // Then
+        verify(acknowledgment, never()).acknowledge();
+
+        // When
+        publish.complete(null);
+
+        // Then
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Событие, не переданное на повтор, не подтверждается и читается заново")
+    void rewindsWhenRetryPublishFails() {
+        // Given
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        given(emailService.sendUserCreatedEmails(anyList()))
+                .willReturn(List.of(delivery))
+                .willReturn(List.of(CompletableFuture.completedFuture(null)));
+        given(listenerRegistry.getListenerContainer(KafkaConsumer.LISTENER_ID)).willReturn(container);
+        given(failedEventRouter.retryAfterDeliveryFailure(any(), any()))
+                .willAnswer(invocation -> CompletableFuture.failedFuture(new IllegalStateException("kafka down")));
+        given(consumer.assignment()).willReturn(Set.of(PARTITION));
+        kafkaConsumer.listen(List.of(record(5, "e-1")), acknowledgment, consumer);
+
+        // When
+        delivery.completeExceptionally(new IllegalStateException("smtp down"));
+        kafkaConsumer.listen(List.of(record(6, "e-2")), acknowledgment, consumer);
+
+        // Then: партиция возвращена к событию, пакет с ней не подтверждается
+        verify(consumer).seek(PARTITION, 5);
+        verify(acknowledgment, never()).acknowledge();
+        verify(container).resumePartition(PARTITION);
+
+        // When: событие прочитано заново и больше не считается дублем
+        kafkaConsumer.listen(List.of(record(5, "e-1")), acknowledgment, consumer);
+
+        // Then
+        verify(acknowledgment).acknowledge();
+    }
+
+    private static ConsumerRecord<String, UserEvent> record(long offset, String eventId) {
+        UserEvent event = new UserEvent();
+        event.setEventType("USER_CREATED");
+        event.setEmail("john@test.com");
+        event.setUsername("John");
+        event.setUserId(5L);
+        event.setEventId(eventId);
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "5", event);
+    }
+}
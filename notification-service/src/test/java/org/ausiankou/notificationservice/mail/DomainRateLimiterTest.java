@@ -0,0 +1,69 @@
+package org.ausiankou.notificationservice.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DomainRateLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    @DisplayName("В пределах burst письма уходят сразу, следующее ждет интервал лимита")
+    void allowsBurstThenSpacesByRate() {
+        // Given: 10 писем в секунду, опережение на 2 письма
+        DomainRateLimiter limiter = new DomainRateLimiter(10, Map.of(), 2);
+
+        // When / Then
+        assertThat(limiter.reserve("example.com", 1, 0)).isNotPositive();
+        assertThat(limiter.reserve("example.com", 1, 0)).isNotPositive();
+        assertThat(limiter.reserve("example.com", 1, 0)).isEqualTo(100 * MILLIS);
+        assertThat(limiter.reserve("example.com", 1, 0)).isEqualTo(200 * MILLIS);
+    }
+
+    @Test
+    @DisplayName("Лимит считается отдельно для каждого домена, переопределение действует только на свой домен")
+    void limitsDomainsIndependently() {
+        // Given
+        DomainRateLimiter limiter = new DomainRateLimiter(10, Map.of("gmail.com", 1.0), 1);
+
+        // When
+        limiter.reserve("gmail.com", 1, 0);
+        long gmailWait = limiter.reserve("gmail.com", 1, 0);
+        long otherWait = limiter.reserve("example.com", 1, 0);
+
+        // Then
+        assertThat(gmailWait).isEqualTo(1_000 * MILLIS);
+        assertThat(otherWait).isNotPositive();
+    }
+
+    @Test
+    @DisplayName("После простоя запас восстанавливается, но не копится сверх burst")
+    void refillsAfterIdleUpToBurst() {
+        // Given
+        DomainRateLimiter limiter = new DomainRateLimiter(10, Map.of(), 2);
+        limiter.reserve("example.com", 2, 0);
+
+        // When: прошло 10 секунд
+        long now = 10_000 * MILLIS;
+
+        // Then
+        assertThat(limiter.reserve("example.com", 2, now)).isNotPositive();
+        assertThat(limiter.reserve("example.com", 1, now)).isEqualTo(100 * MILLIS);
+    }
+
+    @Test
+    @DisplayName("Нулевой лимит означает отправку без ограничения")
+    void zeroRateIsUnlimited() {
+        // Given
+        DomainRateLimiter limiter = new DomainRateLimiter(0, Map.of(), 1);
+
+        // When / Then
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(limiter.reserve("example.com", 50, 0)).isNotPositive();
+        }
+    }
+}
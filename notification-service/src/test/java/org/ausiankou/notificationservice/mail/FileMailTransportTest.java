@@ -0,0 +1,55 @@
+package org.ausiankou.notificationservice.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileMailTransportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Письма дописываются в mbox, строки тела с \"From \" экранируются")
+    void appendsMessagesInMboxFormat() throws Exception {
+        // Given
+        Path file = dir.resolve("outbox/notifications.mbox");
+        FileMailTransport transport = new FileMailTransport(file, true);
+
+        // When
+        transport.send(List.of(new EmailMessage("a@example.com", "Привет", "From now on\nline 2")));
+        transport.send(List.of(new EmailMessage("b@example.com", "Second", "From: not a separator")));
+        transport.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).filteredOn(line -> line.startsWith("From ")).hasSize(2)
+                .allSatisfy(line -> assertThat(line).startsWith("From notification-service "));
+        assertThat(lines).contains("To: a@example.com", "Subject: Привет", ">From now on", "line 2",
+                "To: b@example.com", "From: not a separator");
+    }
+
+    @Test
+    @DisplayName("Повторное открытие дописывает файл, а не перезаписывает")
+    void appendsAfterReopen() throws Exception {
+        // Given
+        Path file = dir.resolve("notifications.mbox");
+        FileMailTransport first = new FileMailTransport(file, false);
+        first.send(List.of(new EmailMessage("a@example.com", "one", "text")));
+        first.close();
+
+        // When
+        FileMailTransport second = new FileMailTransport(file, false);
+        second.send(List.of(new EmailMessage("b@example.com", "two", "text")));
+        second.close();
+
+        // Then
+        assertThat(Files.readAllLines(file)).contains("Subject: one", "Subject: two");
+    }
+}
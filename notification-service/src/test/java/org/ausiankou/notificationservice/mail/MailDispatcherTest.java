@@ -0,0 +1,125 @@
+package org.ausiankou.notificationservice.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailDispatcherTest {
+
+    private final List<EmailMessage> sent = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final MailTransport transport = new MailTransport() {
+        @Override
+        public void send(List<EmailMessage> messages) {
+            sent.addAll(messages);
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    };
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(1_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Домен, упершийся в лимит, не задерживает письма на другие домены")
+    void throttledDomainDoesNotBlockOthers() throws Exception {
+        // Given: один отправитель, gmail.com — одно письмо в секунду
+        DomainRateLimiter limiter = new DomainRateLimiter(0, Map.of("gmail.com", 1.0), 1);
+        dispatcher = new MailDispatcher(transport, limiter, 100, 1, 1, 100);
+        List<CompletableFuture<Void>> gmail = dispatcher.submitAll(List.of(
+                message("a@gmail.com"), message("b@gmail.com"), message("c@gmail.com")));
+
+        // When
+        CompletableFuture<Void> other = dispatcher.submit(message("d@example.com"));
+
+        // Then
+        other.get(500, TimeUnit.MILLISECONDS);
+        assertThat(gmail.get(0)).isDone();
+        assertThat(gmail.get(2)).isNotDone();
+        assertThat(dispatcher.queued()).isEqualTo(2);
+
+        // When / Then: отложенные письма уходят по расписанию лимита
+        gmail.get(2).get(5, TimeUnit.SECONDS);
+        assertThat(sent).extracting(EmailMessage::to)
+                .containsExactly("a@gmail.com", "d@example.com", "b@gmail.com", "c@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Пакет больше свободного места отклоняется целиком")
+    void rejectsWholeBatchWhenQueueIsFull() {
+        // Given: без отправителей очередь не разбирается
+        dispatcher = new MailDispatcher(transport, new DomainRateLimiter(0, Map.of(), 1), 2, 0, 1, 10);
+
+        // When / Then
+        assertThatThrownBy(() -> dispatcher.submitAll(List.of(
+                message("a@example.com"), message("b@example.com"), message("c@example.com"))))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(dispatcher.queued()).isZero();
+
+        assertThat(dispatcher.submitAll(List.of(message("a@example.com"), message("b@example.com")))).hasSize(2);
+        assertThat(dispatcher.queued()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Место в очереди освобождается только после доставки отложенных писем")
+    void deferredMessagesKeepQueueCapacity() {
+        // Given: gmail.com — одно письмо в 10 секунд, очередь на два письма
+        DomainRateLimiter limiter = new DomainRateLimiter(0, Map.of("gmail.com", 0.1), 1);
+        dispatcher = new MailDispatcher(transport, limiter, 2, 1, 1, 10);
+        CompletableFuture<Void> first = dispatcher.submit(message("a@gmail.com"));
+        dispatcher.submit(message("b@gmail.com"));
+        first.join();
+
+        // When / Then
+        assertThatThrownBy(() -> dispatcher.submitAll(List.of(message("c@example.com"), message("d@example.com"))))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(dispatcher.submit(message("c@example.com"))).succeedsWithin(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Остановка досылает очередь, а не успевшие письма завершает ошибкой")
+    void shutdownDrainsQueueAndFailsLeftovers() {
+        // Given: slow.com — одно письмо в 10 секунд, второе письмо откладывается дальше срока остановки
+        DomainRateLimiter limiter = new DomainRateLimiter(0, Map.of("slow.com", 0.1), 1);
+        dispatcher = new MailDispatcher(transport, limiter, 100, 2, 1, 10);
+        List<CompletableFuture<Void>> fast = dispatcher.submitAll(List.of(
+                message("a@example.com"), message("b@example.com"), message("c@example.com")));
+        List<CompletableFuture<Void>> slow = dispatcher.submitAll(List.of(message("a@slow.com")));
+        CompletableFuture<Void> late = dispatcher.submit(message("b@slow.com"));
+
+        // When
+        dispatcher.shutdown(300);
+
+        // Then
+        assertThat(fast).allSatisfy(future -> assertThat(future).isCompleted());
+        assertThat(slow.get(0)).isCompleted();
+        assertThat(late).isCompletedExceptionally();
+        assertThatThrownBy(late::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(closed).isTrue();
+        assertThatThrownBy(() -> dispatcher.submit(message("x@example.com")))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static EmailMessage message(String to) {
+        return new EmailMessage(to, "subject", "text");
+    }
+}
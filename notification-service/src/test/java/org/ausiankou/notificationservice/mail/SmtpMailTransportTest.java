@@ -0,0 +1,169 @@
+package org.ausiankou.notificationservice.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmtpMailTransportTest {
+
+    private FakeSmtpServer server;
+    private SmtpMailTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSmtpServer();
+        transport = new SmtpMailTransport(new SmtpMailTransport.Settings("127.0.0.1", server.port(), "", "",
+                false, false, "noreply@localhost", 2, 2_000));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Пакеты писем уходят по одному переиспользуемому соединению")
+    void reusesConnectionAcrossBatches() {
+        // When
+        transport.send(List.of(message("a@example.com"), message("b@example.com")));
+        transport.send(List.of(message("c@example.com")));
+
+        // Then
+        assertThat(server.recipients).containsExactly("a@example.com", "b@example.com", "c@example.com");
+        assertThat(server.connections).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Соединение, закрытое сервером, не переиспользуется: открывается новое")
+    void replacesConnectionClosedByServer() {
+        // Given
+        server.dropAfterMessage = true;
+        transport.send(List.of(message("a@example.com")));
+
+        // When
+        transport.send(List.of(message("b@example.com")));
+
+        // Then
+        assertThat(server.recipients).containsExactly("a@example.com", "b@example.com");
+        assertThat(server.connections).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Ошибка доставки пробрасывается, а соединение с ошибкой закрывается")
+    void dropsConnectionAfterFailure() {
+        // Given
+        server.rejectedRecipient = "bad@example.com";
+
+        // When / Then
+        assertThatThrownBy(() -> transport.send(List.of(message("bad@example.com"))))
+                .isInstanceOf(MailDeliveryException.class);
+        transport.send(List.of(message("good@example.com")));
+
+        assertThat(server.recipients).containsExactly("good@example.com");
+        assertThat(server.connections).hasValue(2);
+    }
+
+    private static EmailMessage message(String to) {
+        return new EmailMessage(to, "subject", "text");
+    }
+
+    /** SMTP-сервер в памяти: принимает письма и запоминает получателей. */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final List<String> recipients = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private volatile boolean dropAfterMessage;
+        private volatile String rejectedRecipient;
+
+        FakeSmtpServer() throws IOException {
+            Thread acceptor = new Thread(this::accept, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        private void accept() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(client), "fake-smtp-session");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (client;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                         StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost ESMTP");
+                String recipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("RCPT TO:")) {
+                        recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        reply(out, recipient.equals(rejectedRecipient) ? "550 mailbox unavailable" : "250 OK");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                        while (!".".equals(in.readLine())) {
+                            // тело письма не проверяется
+                        }
+                        recipients.add(recipient);
+                        reply(out, "250 OK");
+                        if (dropAfterMessage) {
+                            return;
+                        }
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 bye");
+                        return;
+                    } else if (command.startsWith("EHLO") || command.startsWith("HELO")
+                            || command.startsWith("MAIL FROM:") || command.startsWith("RSET")
+                            || command.startsWith("NOOP")) {
+                        reply(out, "250 OK");
+                    } else {
+                        reply(out, "502 command not implemented");
+                    }
+                }
+            } catch (IOException ignored) {
+                // клиент закрыл соединение
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.ausiankou.notificationservice.template;
+
+import org.ausiankou.notificationservice.UserEvent;
+import org.ausiankou.notificationservice.mail.EmailMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplatesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Шаблон для en_US берется из языковой версии en")
+    void fallsBackFromCountryToLanguage() {
+        // Given
+        EmailTemplates templates = new EmailTemplates("", Locale.forLanguageTag("ru"));
+
+        // When
+        EmailMessage message = templates.get("user-created", Locale.US).render(event("John"));
+
+        // Then
+        assertThat(message.subject()).isEqualTo("Welcome! Your account has been created");
+        assertThat(message.text()).isEqualTo("Hello, John! Your account has been created successfully.");
+    }
+
+    @Test
+    @DisplayName("Для локали без шаблона используется шаблон без локали")
+    void fallsBackToTemplateWithoutLocale() {
+        // Given
+        EmailTemplates templates = new EmailTemplates("", Locale.forLanguageTag("ru"));
+
+        // When
+        EmailMessage message = templates.get("user-deleted", Locale.GERMAN).render(event("Hans"));
+
+        // Then
+        assertThat(message.subject()).isEqualTo("Ваш аккаунт был удален");
+        assertThat(message.text()).isEqualTo("Здравствуйте, Hans! Ваш аккаунт был удалён.");
+    }
+
+    @Test
+    @DisplayName("Неизвестный шаблон — ошибка, а не пустое письмо")
+    void rejectsUnknownTemplate() {
+        // Given
+        EmailTemplates templates = new EmailTemplates("", Locale.forLanguageTag("ru"));
+
+        // When / Then
+        assertThatThrownBy(() -> templates.get("user-renamed", Locale.ENGLISH))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("user-renamed");
+    }
+
+    @Test
+    @DisplayName("Шаблон из каталога переопределяет встроенный, шаблон с ошибкой не заменяет прежние")
+    void directoryOverridesAndInvalidTemplateKeepsPrevious() throws Exception {
+        // Given
+        Path override = tempDir.resolve("user-created_en.txt");
+        Files.writeString(override, "Subject: Hi {{username}}\n\nCustom body");
+        EmailTemplates templates = new EmailTemplates(tempDir.toString(), Locale.forLanguageTag("ru"));
+
+        // When
+        EmailMessage message = templates.get("user-created", Locale.ENGLISH).render(event("John"));
+
+        // Then
+        assertThat(message.subject()).isEqualTo("Hi John");
+        assertThat(message.text()).isEqualTo("Custom body");
+
+        // When
+        Files.writeString(override, "Subject: Hi {{nickname}}\n\nBroken body");
+        templates.reload();
+
+        // Then
+        assertThat(templates.get("user-created", Locale.ENGLISH).render(event("John")).text())
+                .isEqualTo("Custom body");
+    }
+
+    @Test
+    @DisplayName("После перезагрузки локаль, найденная по старой версии, разрешается заново")
+    void reloadReplacesResolvedTemplates() throws Exception {
+        // Given: en_US разрешился во встроенный en
+        EmailTemplates templates = new EmailTemplates(tempDir.toString(), Locale.forLanguageTag("ru"));
+        templates.get("user-created", Locale.US);
+
+        // When
+        Files.writeString(tempDir.resolve("user-created_en_US.txt"), "Subject: Howdy\n\nHowdy, {{username}}!");
+        templates.reload();
+
+        // Then
+        assertThat(templates.get("user-created", Locale.US).render(event("John")).text())
+                .isEqualTo("Howdy, John!");
+    }
+
+    @Test
+    @DisplayName("Неизвестная подстановка отклоняется при компиляции")
+    void rejectsUnknownPlaceholder() {
+        // When / Then
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hello, {{nickname}}!", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nickname");
+    }
+
+    @Test
+    @DisplayName("В HTML-версии подставляемые значения экранируются, в тексте — нет")
+    void escapesValuesOnlyInHtml() {
+        // Given
+        UserEvent event = event("<b>Tom & Jerry</b>");
+
+        // When
+        String html = CompiledTemplate.compile("<p>{{username}}</p>", true).render(event);
+        String text = CompiledTemplate.compile("{{username}}", false).render(event);
+
+        // Then
+        assertThat(html).isEqualTo("<p>&lt;b&gt;Tom &amp; Jerry&lt;/b&gt;</p>");
+        assertThat(text).isEqualTo("<b>Tom & Jerry</b>");
+    }
+
+    private static UserEvent event(String username) {
+        UserEvent event = new UserEvent();
+        event.setUsername(username);
+        event.setEmail("user@example.com");
+        event.setUserId(1L);
+        return event;
+    }
+}
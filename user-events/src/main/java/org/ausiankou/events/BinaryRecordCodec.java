@@ -0,0 +1,227 @@
+package org.ausiankou.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Компактный бинарный формат записей.
+ * <pre>
+ * [0x00][id схемы писателя: 4 байта big-endian][поля в порядке схемы]
+ * </pre>
+ * Поля без имен и без выравнивания:
+ * <ul>
+ *   <li>{@code string} — varint (длина UTF-8 + 1), 0 означает {@code null};</li>
+ *   <li>{@code long}/{@code int} — байт наличия, затем zigzag varint;</li>
+ *   <li>{@code boolean} — один байт: 0 {@code null}, 1 {@code false}, 2 {@code true}.</li>
+ * </ul>
+ * Читатель получает схему писателя из реестра и переносит поля в свою схему по имени:
+ * отсутствующие у писателя поля остаются {@code null}, лишние пропускаются. Соответствие
+ * позиций для пары схем вычисляется один раз.
+ * <p>
+ * JSON начинается с {@code '{'}, поэтому {@link #isBinary(byte[])} отличает форматы по первому байту.
+ */
+public class BinaryRecordCodec {
+
+    public static final byte MAGIC = 0;
+    private static final int HEADER_SIZE = 5;
+
+    private final SchemaRegistry registry;
+    private final Map<Long, int[]> projections = new ConcurrentHashMap<>();
+
+    public BinaryRecordCodec(SchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    public byte[] encode(GenericRecord record) {
+        Schema schema = record.getSchema();
+        Output out = new Output(64);
+        out.writeByte(MAGIC);
+        out.writeInt(schema.getId());
+        for (int i = 0; i < schema.getFields().size(); i++) {
+            Object value = record.get(i);
+            switch (schema.getFields().get(i).type()) {
+                case STRING -> {
+                    if (value == null) {
+                        out.writeVarLong(0);
+                    } else {
+                        byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        out.writeVarLong(bytes.length + 1L);
+                        out.writeBytes(bytes);
+                    }
+                }
+                case LONG, INT -> {
+                    if (value == null) {
+                        out.writeByte((byte) 0);
+                    } else {
+                        out.writeByte((byte) 1);
+                        out.writeVarLong(zigzag(((Number) value).longValue()));
+                    }
+                }
+                case BOOLEAN -> out.writeByte((byte) (value == null ? 0 : (Boolean) value ? 2 : 1));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Декодирует запись, записанную любой зарегистрированной схемой, в схему читателя.
+     */
+    public GenericRecord decode(byte[] data, Schema readerSchema) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary record");
+        }
+        Input in = new Input(data, 1);
+        Schema writerSchema = registry.getById(in.readInt());
+        int[] projection = projection(writerSchema, readerSchema);
+
+        GenericRecord record = new GenericRecord(readerSchema);
+        for (int i = 0; i < writerSchema.getFields().size(); i++) {
+            Object value = switch (writerSchema.getFields().get(i).type()) {
+                case STRING -> {
+                    int length = (int) in.readVarLong();
+                    yield length == 0 ? null : in.readString(length - 1);
+                }
+                case LONG -> in.readByte() == 0 ? null : unzigzag(in.readVarLong());
+                case INT -> in.readByte() == 0 ? null : (int) unzigzag(in.readVarLong());
+                case BOOLEAN -> {
+                    byte flag = in.readByte();
+                    yield flag == 0 ? null : flag == 2;
+                }
+            };
+            if (projection[i] >= 0) {
+                record.put(projection[i], value);
+            }
+        }
+        return record;
+    }
+
+    private int[] projection(Schema writer, Schema reader) {
+        long key = ((long) writer.getId() << 32) | (reader.getId() & 0xFFFFFFFFL);
+        return projections.computeIfAbsent(key, k -> {
+            int[] positions = new int[writer.getFields().size()];
+            Arrays.fill(positions, -1);
+            for (int i = 0; i < positions.length; i++) {
+                Schema.Field field = writer.getFields().get(i);
+                int position = reader.positionOf(field.name());
+                if (position >= 0) {
+                    if (reader.getFields().get(position).type() != field.type()) {
+                        throw new IllegalStateException("Field " + field.name() + " is " + field.type()
+                                + " in " + writer + " but " + reader.getFields().get(position).type()
+                                + " in " + reader);
+                    }
+                    positions[i] = position;
+                }
+            }
+            return positions;
+        });
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        byte readByte() {
+            check(1);
+            return data[position++];
+        }
+
+        int readInt() {
+            check(4);
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString(int length) {
+            check(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void check(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("Truncated record at byte " + position);
+            }
+        }
+    }
+}
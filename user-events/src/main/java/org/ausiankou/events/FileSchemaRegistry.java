@@ -0,0 +1,133 @@
+package org.ausiankou.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Локальная замена сервера реестра схем: каждая схема — файл {@code <id>.schema}
+ * в общем каталоге. Схемы, поставляемые с кодом, передаются как начальные и
+ * доступны без каталога; без каталога реестр работает только в памяти.
+ * <p>
+ * Новый id выбирается как максимальный известный + 1. Схема пишется во
+ * временный файл, а id занимается жесткой ссылкой на него: создание ссылки
+ * атомарно и не заменяет существующий файл, поэтому читатели видят схему
+ * только целиком. Если другой процесс успел занять id, попытка повторяется со
+ * следующим.
+ */
+public class FileSchemaRegistry implements SchemaRegistry {
+
+    private static final String SUFFIX = ".schema";
+
+    private final Path directory;
+    private final Map<Integer, Schema> schemas = new ConcurrentHashMap<>();
+
+    public FileSchemaRegistry(Path directory, List<Schema> seeds) {
+        this.directory = directory;
+        for (Schema seed : seeds) {
+            if (seed.getId() <= 0) {
+                throw new IllegalArgumentException("Seed schema must have an id: " + seed);
+            }
+            schemas.put(seed.getId(), seed);
+        }
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create schema registry directory " + directory, e);
+            }
+        }
+    }
+
+    @Override
+    public Schema getById(int id) {
+        Schema schema = schemas.get(id);
+        if (schema == null && directory != null) {
+            schema = read(directory.resolve(id + SUFFIX));
+            if (schema != null) {
+                schemas.putIfAbsent(id, schema);
+            }
+        }
+        if (schema == null) {
+            throw new IllegalStateException("Unknown schema id " + id);
+        }
+        return schema;
+    }
+
+    @Override
+    public synchronized Schema register(Schema schema) {
+        while (true) {
+            refresh();
+            int maxId = 0;
+            for (Schema known : schemas.values()) {
+                if (known.sameDefinition(schema)) {
+                    return known;
+                }
+                maxId = Math.max(maxId, known.getId());
+            }
+            Schema registered = schema.withId(maxId + 1);
+            if (directory == null) {
+                schemas.put(registered.getId(), registered);
+                return registered;
+            }
+            if (write(registered)) {
+                schemas.put(registered.getId(), registered);
+                return registered;
+            }
+        }
+    }
+
+    private void refresh() {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(file -> {
+                        Schema schema = read(file);
+                        if (schema != null) {
+                            schemas.putIfAbsent(schema.getId(), schema);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list schema registry " + directory, e);
+        }
+    }
+
+    private boolean write(Schema schema) {
+        Path target = directory.resolve(schema.getId() + SUFFIX);
+        try {
+            Path temp = Files.createTempFile(directory, "schema", ".tmp");
+            try {
+                Files.writeString(temp, schema.toText(), StandardCharsets.UTF_8);
+                // В отличие от move, ссылка гарантированно не заменит файл, созданный другим процессом
+                Files.createLink(target, temp);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                return false;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write schema " + target, e);
+        }
+    }
+
+    private static Schema read(Path file) {
+        try {
+            return Schema.parse(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read schema " + file, e);
+        }
+    }
+}
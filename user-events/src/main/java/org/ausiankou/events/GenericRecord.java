@@ -0,0 +1,49 @@
+package org.ausiankou.events;
+
+import java.util.Arrays;
+
+/**
+ * Значения полей по схеме. Доступ по позиции не ищет имя поля и не выделяет памяти.
+ */
+public final class GenericRecord {
+
+    private final Schema schema;
+    private final Object[] values;
+
+    public GenericRecord(Schema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.getFields().size()];
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public Object get(int position) {
+        return values[position];
+    }
+
+    public Object get(String field) {
+        int position = schema.positionOf(field);
+        return position < 0 ? null : values[position];
+    }
+
+    public GenericRecord put(int position, Object value) {
+        values[position] = value;
+        return this;
+    }
+
+    public GenericRecord put(String field, Object value) {
+        int position = schema.positionOf(field);
+        if (position < 0) {
+            throw new IllegalArgumentException("No field " + field + " in " + schema);
+        }
+        values[position] = value;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return schema.getName() + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,156 @@
+package org.ausiankou.events;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Версионированная схема записи: упорядоченный список типизированных полей.
+ * Порядок полей задает порядок их кодирования в {@link BinaryRecordCodec},
+ * поэтому имена в сообщение не попадают.
+ * <p>
+ * Текстовый вид (файлы реестра):
+ * <pre>
+ * id=1
+ * name=user-event
+ * version=1
+ * fields=eventType:string,email:string,userId:long
+ * </pre>
+ */
+public final class Schema {
+
+    public enum Type {
+        STRING, LONG, INT, BOOLEAN
+    }
+
+    public record Field(String name, Type type) {
+        public Field {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(type);
+        }
+    }
+
+    private final int id;
+    private final String name;
+    private final int version;
+    private final List<Field> fields;
+    private final Map<String, Integer> positions;
+
+    public Schema(int id, String name, int version, List<Field> fields) {
+        this.id = id;
+        this.name = Objects.requireNonNull(name);
+        this.version = version;
+        this.fields = List.copyOf(fields);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < this.fields.size(); i++) {
+            if (positions.put(this.fields.get(i).name(), i) != null) {
+                throw new IllegalArgumentException("Duplicate field " + this.fields.get(i).name() + " in " + name);
+            }
+        }
+        this.positions = Collections.unmodifiableMap(positions);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return позиция поля или -1, если поля в схеме нет
+     */
+    public int positionOf(String fieldName) {
+        return positions.getOrDefault(fieldName, -1);
+    }
+
+    public Schema withId(int newId) {
+        return new Schema(newId, name, version, fields);
+    }
+
+    /** Та же схема с точностью до идентификатора. */
+    public boolean sameDefinition(Schema other) {
+        return name.equals(other.name) && version == other.version && fields.equals(other.fields);
+    }
+
+    public static Schema parse(String text) {
+        Map<String, String> properties = new HashMap<>();
+        for (String line : text.split("\\R")) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Malformed schema line: " + line);
+            }
+            properties.put(line.substring(0, eq).strip(), line.substring(eq + 1).strip());
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (String field : require(properties, "fields").split(",")) {
+            String[] parts = field.strip().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed field definition: " + field);
+            }
+            fields.add(new Field(parts[0].strip(), Type.valueOf(parts[1].strip().toUpperCase())));
+        }
+        return new Schema(Integer.parseInt(properties.getOrDefault("id", "0")), require(properties, "name"),
+                Integer.parseInt(require(properties, "version")), fields);
+    }
+
+    public static Schema fromResource(String resource) {
+        try (InputStream in = Schema.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Schema resource not found: " + resource);
+            }
+            return parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read schema " + resource, e);
+        }
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder()
+                .append("id=").append(id).append('\n')
+                .append("name=").append(name).append('\n')
+                .append("version=").append(version).append('\n')
+                .append("fields=");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(fields.get(i).name()).append(':').append(fields.get(i).type().name().toLowerCase());
+        }
+        return text.append('\n').toString();
+    }
+
+    private static String require(Map<String, String> properties, String key) {
+        String value = properties.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Schema property '" + key + "' is missing");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + version + " (id " + id + ")";
+    }
+}
@@ -0,0 +1,18 @@
+package org.ausiankou.events;
+
+/**
+ * Реестр схем: писатель регистрирует схему и пишет ее id в каждое сообщение,
+ * читатель по id получает схему писателя.
+ */
+public interface SchemaRegistry {
+
+    /**
+     * @throws IllegalStateException если схема с таким id неизвестна
+     */
+    Schema getById(int id);
+
+    /**
+     * Регистрирует схему или возвращает уже зарегистрированную с тем же определением.
+     */
+    Schema register(Schema schema);
+}
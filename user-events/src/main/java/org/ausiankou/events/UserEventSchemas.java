@@ -0,0 +1,29 @@
+package org.ausiankou.events;
+
+import java.util.List;
+
+/**
+ * Схемы записей топика user-events, поставляемые вместе с модулем.
+ */
+public final class UserEventSchemas {
+
+    public static final String EVENT_TYPE = "eventType";
+    public static final String EMAIL = "email";
+    public static final String USERNAME = "username";
+    public static final String USER_ID = "userId";
+    /** Уникальный идентификатор события: повторная доставка приходит с тем же значением. */
+    public static final String EVENT_ID = "eventId";
+
+    public static final Schema V1 = Schema.fromResource("user-event-1.schema");
+    public static final Schema V2 = Schema.fromResource("user-event-2.schema");
+
+    /** Текущая схема писателя. */
+    public static final Schema CURRENT = V2;
+
+    private UserEventSchemas() {
+    }
+
+    public static List<Schema> all() {
+        return List.of(V1, V2);
+    }
+}
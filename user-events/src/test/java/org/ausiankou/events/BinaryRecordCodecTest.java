@@ -0,0 +1,101 @@
+package org.ausiankou.events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryRecordCodecTest {
+
+    @Test
+    @DisplayName("Запись кодируется и читается без потерь, включая null и отрицательные числа")
+    void roundTrip() {
+        // Given
+        BinaryRecordCodec codec = new BinaryRecordCodec(new FileSchemaRegistry(null, UserEventSchemas.all()));
+        GenericRecord record = new GenericRecord(UserEventSchemas.CURRENT)
+                .put(UserEventSchemas.EVENT_TYPE, "USER_CREATED")
+                .put(UserEventSchemas.EMAIL, "иван@test.com")
+                .put(UserEventSchemas.USER_ID, -42L);
+
+        // When
+        byte[] data = codec.encode(record);
+        GenericRecord decoded = codec.decode(data, UserEventSchemas.CURRENT);
+
+        // Then
+        assertThat(BinaryRecordCodec.isBinary(data)).isTrue();
+        assertThat(decoded.get(UserEventSchemas.EVENT_TYPE)).isEqualTo("USER_CREATED");
+        assertThat(decoded.get(UserEventSchemas.EMAIL)).isEqualTo("иван@test.com");
+        assertThat(decoded.get(UserEventSchemas.USERNAME)).isNull();
+        assertThat(decoded.get(UserEventSchemas.USER_ID)).isEqualTo(-42L);
+        // Без имен полей сообщение заметно меньше JSON с тем же содержимым
+        assertThat(data.length).isLessThanOrEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("Новая версия схемы из файлового реестра читается старым читателем")
+    void readerResolvesNewerWriterSchema(@TempDir Path dir) {
+        // Given
+        Schema v3 = new Schema(0, "user-event", 3, List.of(
+                new Schema.Field("eventType", Schema.Type.STRING),
+                new Schema.Field("locale", Schema.Type.STRING),
+                new Schema.Field("userId", Schema.Type.LONG),
+                new Schema.Field("verified", Schema.Type.BOOLEAN)));
+        Schema registered = new FileSchemaRegistry(dir, UserEventSchemas.all()).register(v3);
+        GenericRecord record = new GenericRecord(registered)
+                .put("eventType", "USER_DELETED").put("locale", "ru").put("userId", 7L).put("verified", true);
+
+        // When
+        byte[] data = new BinaryRecordCodec(new FileSchemaRegistry(dir, UserEventSchemas.all())).encode(record);
+        // Читатель в другом процессе: новый экземпляр реестра находит схему в каталоге
+        GenericRecord decoded = new BinaryRecordCodec(new FileSchemaRegistry(dir, UserEventSchemas.all()))
+                .decode(data, UserEventSchemas.V1);
+
+        // Then
+        assertThat(registered.getId()).isEqualTo(3);
+        assertThat(new FileSchemaRegistry(dir, UserEventSchemas.all()).register(v3).getId()).isEqualTo(3);
+        assertThat(decoded.get(UserEventSchemas.EVENT_TYPE)).isEqualTo("USER_DELETED");
+        assertThat(decoded.get(UserEventSchemas.USER_ID)).isEqualTo(7L);
+        assertThat(decoded.get(UserEventSchemas.EMAIL)).isNull();
+    }
+
+    @Test
+    @DisplayName("Запись версии 1 читается схемой версии 2, eventId — null")
+    void currentReaderResolvesOlderWriterSchema() {
+        // Given
+        BinaryRecordCodec codec = new BinaryRecordCodec(new FileSchemaRegistry(null, UserEventSchemas.all()));
+        GenericRecord v1 = new GenericRecord(UserEventSchemas.V1)
+                .put(UserEventSchemas.EVENT_TYPE, "USER_CREATED")
+                .put(UserEventSchemas.USER_ID, 3L);
+
+        // When
+        GenericRecord decoded = codec.decode(codec.encode(v1), UserEventSchemas.V2);
+
+        // Then
+        assertThat(decoded.get(UserEventSchemas.EVENT_TYPE)).isEqualTo("USER_CREATED");
+        assertThat(decoded.get(UserEventSchemas.USER_ID)).isEqualTo(3L);
+        assertThat(decoded.get(UserEventSchemas.EVENT_ID)).isNull();
+    }
+
+    @Test
+    @DisplayName("Неизвестный id схемы и обрезанное сообщение дают понятную ошибку")
+    void rejectsUnknownSchemaAndTruncatedData() {
+        // Given
+        BinaryRecordCodec codec = new BinaryRecordCodec(new FileSchemaRegistry(null, UserEventSchemas.all()));
+        byte[] data = codec.encode(new GenericRecord(UserEventSchemas.CURRENT).put(UserEventSchemas.EMAIL, "a@b.c"));
+
+        // When Then
+        assertThatThrownBy(() -> codec.decode(new byte[]{0, 0, 0, 0, 9}, UserEventSchemas.CURRENT))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Unknown schema id 9");
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(data, data.length - 2), UserEventSchemas.CURRENT))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+        assertThat(BinaryRecordCodec.isBinary("{\"eventType\":1}".getBytes())).isFalse();
+    }
+}
@@ -0,0 +1,52 @@
+package org.ausiankou.events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSchemaRegistryTest {
+
+    @Test
+    @DisplayName("Процессы, одновременно регистрирующие разные схемы, получают разные id без перезаписи файлов")
+    void concurrentRegistrationsClaimDistinctIds(@TempDir Path dir) {
+        // Given: у каждого «процесса» свой экземпляр реестра на общем каталоге
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Schema>> registrations = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Schema schema = new Schema(0, "user-event", 10 + i, List.of(
+                    new Schema.Field("eventType", Schema.Type.STRING),
+                    new Schema.Field("field" + i, Schema.Type.LONG)));
+            FileSchemaRegistry registry = new FileSchemaRegistry(dir, UserEventSchemas.all());
+            registrations.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return registry.register(schema);
+            }));
+        }
+
+        // When
+        start.countDown();
+        List<Schema> registered = registrations.stream().map(CompletableFuture::join).toList();
+
+        // Then: каждый id в каталоге хранит ровно ту схему, которую получил ее автор
+        assertThat(registered.stream().map(Schema::getId).distinct()).hasSize(writers);
+        FileSchemaRegistry reader = new FileSchemaRegistry(dir, List.of());
+        IntStream.range(0, writers).forEach(i -> {
+            Schema schema = registered.get(i);
+            assertThat(reader.getById(schema.getId()).sameDefinition(schema)).isTrue();
+        });
+    }
+}
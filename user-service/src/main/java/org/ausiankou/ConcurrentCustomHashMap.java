@@ -0,0 +1,472 @@
+package org.ausiankou;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасный вариант {@link CustomHashMap}.
+ * <p>
+ * Чтение не берет блокировок: ячейки таблицы читаются через {@link VarHandle},
+ * поля узлов volatile. Вставка в пустую ячейку — CAS, изменение непустой —
+ * под монитором головного узла этой ячейки, поэтому писатели в разные ячейки
+ * не мешают друг другу. Ресайз кооперативный: таблица делится на участки,
+ * которые переносят все пишущие потоки; перенесенная ячейка заменяется
+ * {@link ForwardingNode}, по которому читатели идут в новую таблицу.
+ * <p>
+ * Ключи и значения {@code null} не допускаются.
+ */
+public class ConcurrentCustomHashMap<K, V> {
+    static final int DEFAULT_CAPACITY = 16;
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+    static final int MIN_TRANSFER_STRIDE = 16;
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    static final int MOVED = -1;
+    static final int RESERVED = -2;
+    static final int HASH_BITS = 0x7fffffff;
+
+    private static final VarHandle TABLE = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    private volatile Node<K, V>[] table;
+    private volatile int threshold;
+    private final LongAdder count = new LongAdder();
+    private final AtomicReference<Resize<K, V>> resize = new AtomicReference<>();
+
+    public ConcurrentCustomHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentCustomHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        int cap = CustomHashMap.tableSizeFor(capacity);
+        table = new Node[cap];
+        threshold = thresholdFor(cap);
+    }
+
+    public V get(K key) {
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        for (;;) {
+            Node<K, V> e = tabAt(tab, h & (tab.length - 1));
+            if (e == null) {
+                return null;
+            }
+            if (e.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>) e).nextTable;
+                continue;
+            }
+            for (; e != null; e = e.next) {
+                if (e.hash == h && (e.key == key || key.equals(e.key))) {
+                    return e.val;
+                }
+            }
+            return null;
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    public V remove(K key) {
+        int h = spread(key.hashCode());
+        for (Node<K, V>[] tab = table;;) {
+            int i = h & (tab.length - 1);
+            Node<K, V> f = tabAt(tab, i);
+            if (f == null) {
+                return null;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) != f) {
+                    continue;
+                }
+                for (Node<K, V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                    if (e.hash == h && (e.key == key || key.equals(e.key))) {
+                        unlink(tab, i, pred, e);
+                        count.decrement();
+                        return e.val;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Атомарно вычисляет значение для отсутствующего ключа. Функция вызывается
+     * не более одного раза и под блокировкой ячейки, поэтому она должна быть
+     * короткой и не должна обращаться к этой же карте.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int h = spread(key.hashCode());
+        for (Node<K, V>[] tab = table;;) {
+            int i = h & (tab.length - 1);
+            Node<K, V> f = tabAt(tab, i);
+            if (f == null) {
+                Node<K, V> reservation = new Node<>(RESERVED, null, null);
+                synchronized (reservation) {
+                    if (casTabAt(tab, i, null, reservation)) {
+                        V value = null;
+                        try {
+                            value = mappingFunction.apply(key);
+                        } finally {
+                            setTabAt(tab, i, value == null ? null : new Node<>(h, key, value));
+                        }
+                        if (value != null) {
+                            addCount(1);
+                        }
+                        return value;
+                    }
+                }
+                continue;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+                continue;
+            }
+            V value;
+            synchronized (f) {
+                if (tabAt(tab, i) != f) {
+                    continue;
+                }
+                Node<K, V> last = null;
+                for (Node<K, V> e = f; e != null; last = e, e = e.next) {
+                    if (e.hash == h && (e.key == key || key.equals(e.key))) {
+                        return e.val;
+                    }
+                }
+                value = mappingFunction.apply(key);
+                if (value == null) {
+                    return null;
+                }
+                last.next = new Node<>(h, key, value);
+            }
+            addCount(1);
+            return value;
+        }
+    }
+
+    /**
+     * Атомарно сливает значение с текущим: при отсутствии ключа кладет {@code value},
+     * иначе кладет результат {@code remappingFunction}; {@code null} удаляет ключ.
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        int h = spread(key.hashCode());
+        for (Node<K, V>[] tab = table;;) {
+            int i = h & (tab.length - 1);
+            Node<K, V> f = tabAt(tab, i);
+            if (f == null) {
+                if (casTabAt(tab, i, null, new Node<>(h, key, value))) {
+                    addCount(1);
+                    return value;
+                }
+                continue;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+                continue;
+            }
+            int delta = 0;
+            V result = null;
+            synchronized (f) {
+                if (tabAt(tab, i) != f) {
+                    continue;
+                }
+                Node<K, V> e = f, pred = null;
+                for (; e != null; pred = e, e = e.next) {
+                    if (e.hash == h && (e.key == key || key.equals(e.key))) {
+                        break;
+                    }
+                }
+                if (e == null) {
+                    pred.next = new Node<>(h, key, value);
+                    result = value;
+                    delta = 1;
+                } else {
+                    result = remappingFunction.apply(e.val, value);
+                    if (result != null) {
+                        e.val = result;
+                    } else {
+                        unlink(tab, i, pred, e);
+                        delta = -1;
+                    }
+                }
+            }
+            if (delta != 0) {
+                addCount(delta);
+            }
+            return result;
+        }
+    }
+
+    public int size() {
+        long n = count.sum();
+        return n < 0 ? 0 : n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    public void display() {
+        Node<K, V>[] tab = table;
+        for (int i = 0; i < tab.length; i++) {
+            displayBin(tab, i);
+        }
+    }
+
+    private void displayBin(Node<K, V>[] tab, int i) {
+        Node<K, V> e = tabAt(tab, i);
+        if (e != null && e.hash == MOVED) {
+            Node<K, V>[] next = ((ForwardingNode<K, V>) e).nextTable;
+            displayBin(next, i);
+            displayBin(next, i + tab.length);
+            return;
+        }
+        for (; e != null; e = e.next) {
+            if (e.hash >= 0) {
+                System.out.println(String.format("Ключ = %s ; Значение = %s", e.key, e.val));
+            }
+        }
+    }
+
+    private V putVal(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value);
+        int h = spread(key.hashCode());
+        for (Node<K, V>[] tab = table;;) {
+            int i = h & (tab.length - 1);
+            Node<K, V> f = tabAt(tab, i);
+            if (f == null) {
+                if (casTabAt(tab, i, null, new Node<>(h, key, value))) {
+                    addCount(1);
+                    return null;
+                }
+                continue;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) != f) {
+                    continue;
+                }
+                Node<K, V> last = null;
+                for (Node<K, V> e = f; e != null; last = e, e = e.next) {
+                    if (e.hash == h && (e.key == key || key.equals(e.key))) {
+                        V old = e.val;
+                        if (!onlyIfAbsent) {
+                            e.val = value;
+                        }
+                        return old;
+                    }
+                }
+                last.next = new Node<>(h, key, value);
+            }
+            addCount(1);
+            return null;
+        }
+    }
+
+    private void unlink(Node<K, V>[] tab, int i, Node<K, V> pred, Node<K, V> e) {
+        if (pred == null) {
+            setTabAt(tab, i, e.next);
+        } else {
+            pred.next = e.next;
+        }
+    }
+
+    private void addCount(int delta) {
+        count.add(delta);
+        if (delta <= 0) {
+            return;
+        }
+        Node<K, V>[] tab;
+        while (count.sum() >= threshold && (tab = table).length < MAXIMUM_CAPACITY) {
+            Resize<K, V> current = resize.get();
+            if (current != null) {
+                if (current.from != tab || !current.join()) {
+                    return;
+                }
+                transfer(current);
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            Resize<K, V> started = new Resize<>(tab, new Node[tab.length << 1]);
+            if (!resize.compareAndSet(null, started)) {
+                continue;
+            }
+            if (table != tab) {
+                // Пока мы готовили ресайз, другой поток уже увеличил таблицу
+                resize.set(null);
+                continue;
+            }
+            transfer(started);
+        }
+    }
+
+    private Node<K, V>[] helpTransfer(ForwardingNode<K, V> f) {
+        Resize<K, V> current = resize.get();
+        if (current != null && current.to == f.nextTable && current.join()) {
+            transfer(current);
+        }
+        return f.nextTable;
+    }
+
+    /**
+     * Забирает участки старой таблицы через {@code transferIndex} и переносит их.
+     * Последний вышедший участник публикует новую таблицу.
+     */
+    private void transfer(Resize<K, V> r) {
+        int n = r.from.length;
+        int stride = Math.max((NCPU > 1) ? (n >>> 3) / NCPU : n, MIN_TRANSFER_STRIDE);
+        for (;;) {
+            int hi = r.transferIndex.get();
+            if (hi <= 0) {
+                break;
+            }
+            int lo = Math.max(hi - stride, 0);
+            if (r.transferIndex.compareAndSet(hi, lo)) {
+                for (int i = hi - 1; i >= lo; i--) {
+                    moveBin(r, i);
+                }
+            }
+        }
+        if (r.active.decrementAndGet() == 0) {
+            threshold = thresholdFor(r.to.length);
+            table = r.to;
+            resize.set(null);
+        }
+    }
+
+    private void moveBin(Resize<K, V> r, int i) {
+        Node<K, V>[] from = r.from;
+        int n = from.length;
+        for (;;) {
+            Node<K, V> f = tabAt(from, i);
+            if (f == null) {
+                if (casTabAt(from, i, null, r.forwarding)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(from, i) != f) {
+                    continue;
+                }
+                // Узлы копируются, а не перевешиваются: читатели могут сейчас идти по старой цепочке
+                Node<K, V> lo = null, hi = null;
+                for (Node<K, V> e = f; e != null; e = e.next) {
+                    if ((e.hash & n) == 0) {
+                        lo = new Node<>(e.hash, e.key, e.val, lo);
+                    } else {
+                        hi = new Node<>(e.hash, e.key, e.val, hi);
+                    }
+                }
+                setTabAt(r.to, i, lo);
+                setTabAt(r.to, i + n, hi);
+                setTabAt(from, i, r.forwarding);
+                return;
+            }
+        }
+    }
+
+    static int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private static int thresholdFor(int cap) {
+        return cap >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : cap - (cap >>> 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) TABLE.getAcquire(tab, i);
+    }
+
+    private static <K, V> boolean casTabAt(Node<K, V>[] tab, int i, Node<K, V> expected, Node<K, V> value) {
+        return TABLE.compareAndSet(tab, i, expected, value);
+    }
+
+    private static <K, V> void setTabAt(Node<K, V>[] tab, int i, Node<K, V> value) {
+        TABLE.setRelease(tab, i, value);
+    }
+
+    static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V val) {
+            this(hash, key, val, null);
+        }
+
+        Node(int hash, K key, V val, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+    }
+
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V>[] nextTable;
+
+        ForwardingNode(Node<K, V>[] nextTable) {
+            super(MOVED, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    /**
+     * Состояние одного ресайза. {@code active} — число потоков, участвующих в переносе;
+     * присоединиться можно только пока он больше нуля.
+     */
+    static final class Resize<K, V> {
+        final Node<K, V>[] from;
+        final Node<K, V>[] to;
+        final ForwardingNode<K, V> forwarding;
+        final AtomicInteger transferIndex;
+        final AtomicInteger active = new AtomicInteger(1);
+
+        Resize(Node<K, V>[] from, Node<K, V>[] to) {
+            this.from = from;
+            this.to = to;
+            this.forwarding = new ForwardingNode<>(to);
+            this.transferIndex = new AtomicInteger(from.length);
+        }
+
+        boolean join() {
+            for (;;) {
+                int a = active.get();
+                if (a <= 0) {
+                    return false;
+                }
+                if (active.compareAndSet(a, a + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -1,82 +1,364 @@
 package org.ausiankou;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Хеш-таблица с цепочками. Размер таблицы всегда степень двойки, при превышении
+ * {@code loadFactor} таблица удваивается. Цепочки длиннее {@link #TREEIFY_THRESHOLD}
+ * превращаются в красно-черные деревья, поэтому даже при плохом {@code hashCode}
+ * операции остаются O(log n).
+ * <p>
+ * Реализует {@link Map}: обход через {@link #entrySet()} и {@link #forEach(BiConsumer)}
+ * идет прямо по ячейкам таблицы без промежуточных коллекций, а {@link #putAll(Map)}
+ * заранее выделяет таблицу нужного размера.
+ */
+public class CustomHashMap<K, V> extends AbstractMap<K, V> {
+    static final int DEFAULT_CAPACITY = 16;
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+    static final int TREEIFY_THRESHOLD = 8;
+    static final int UNTREEIFY_THRESHOLD = 6;
+    static final int MIN_TREEIFY_CAPACITY = 64;
 
-public class CustomHashMap<K, V> {
-    private int capacity = 16;
     private Entry<K, V>[] table;
+    private final float loadFactor;
+    private int threshold;
+    private int size;
+    private int modCount;
+    private Set<Map.Entry<K, V>> entrySet;
+
     public CustomHashMap(){
-        table = new Entry[capacity];
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
+
     public CustomHashMap(int capacity){
-        this.capacity = capacity;
-        table = new Entry[capacity];
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CustomHashMap(int capacity, float loadFactor){
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        int cap = tableSizeFor(capacity);
+        table = new Entry[cap];
+        threshold = thresholdFor(cap);
     }
-    public void put(K key, V value) {
-        int index = index(key);
+
+    public CustomHashMap(Map<? extends K, ? extends V> source) {
+        this(capacityFor(source.size(), DEFAULT_LOAD_FACTOR), DEFAULT_LOAD_FACTOR);
+        putAll(source);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int hash = hash(key);
+        int index = indexFor(hash, table.length);
         Entry<K, V> current = table[index];
 
         if (current == null) {
-            table[index] = new Entry<>(key, value, null);
+            table[index] = new Entry<>(hash, key, value, null);
+        } else if (current instanceof TreeBin<K, V> bin) {
+            TreeNode<K, V> existing = bin.putTreeVal(hash, key, value);
+            if (existing != null) {
+                return existing.setValue(value);
+            }
+        } else {
+            int binCount = 0;
+            Entry<K, V> prev = null;
+            while (current != null) {
+                if (current.hash == hash && Objects.equals(current.key, key)) {
+                    return current.setValue(value);
+                }
+                prev = current;
+                current = current.next;
+                binCount++;
+            }
+            prev.next = new Entry<>(hash, key, value, null);
+            if (binCount >= TREEIFY_THRESHOLD) {
+                treeifyBin(index);
+            }
+        }
+        modCount++;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Entry<K, V> removed = removeEntry(key);
+        return removed == null ? null : removed.value;
+    }
+
+    /**
+     * Добавляет все пары из {@code source}. Таблица расширяется один раз
+     * под итоговый размер, а не удваивается по ходу вставки.
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> source) {
+        ensureCapacity(size + source.size());
+        for (Map.Entry<? extends K, ? extends V> e : source.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Готовит таблицу к {@code expectedSize} элементам, чтобы последующие
+     * вставки обходились без ресайза.
+     */
+    @SuppressWarnings("unchecked")
+    public void ensureCapacity(int expectedSize) {
+        int target = capacityFor(expectedSize, loadFactor);
+        if (target <= table.length) {
             return;
         }
+        if (size == 0) {
+            table = new Entry[target];
+            threshold = thresholdFor(target);
+            return;
+        }
+        while (table.length < target) {
+            resize();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(table, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (Entry<K, V> bin : table) {
+            for (Entry<K, V> e = firstInBin(bin); e != null; e = e.next) {
+                action.accept(e.key, e.value);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> es = entrySet;
+        return es != null ? es : (entrySet = new EntrySet());
+    }
+
+    public void display(){
+        forEach((key, value) ->
+                System.out.println(String.format("Ключ = %s ; Значение = %s", key, value)));
+    }
+
+    private Entry<K, V> removeEntry(Object key) {
+        int hash = hash(key);
+        int index = indexFor(hash, table.length);
+        Entry<K, V> current = table[index];
+
+        if (current instanceof TreeBin<K, V> bin) {
+            TreeNode<K, V> node = bin.find(bin.root, hash, key);
+            if (node != null) {
+                bin.removeTreeNode(node);
+                size--;
+                modCount++;
+                if (bin.count <= UNTREEIFY_THRESHOLD) {
+                    table[index] = bin.untreeify();
+                }
+            }
+            return node;
+        }
+
         Entry<K, V> prev = null;
         while (current != null) {
-            if (Objects.equals(current.getKey(), key)) {
-                current.setValue(value);
-                return;
+            if (current.hash == hash && Objects.equals(current.key, key)) {
+                if (prev == null) {
+                    table[index] = current.next;
+                } else {
+                    prev.next = current.next;
+                }
+                size--;
+                modCount++;
+                return current;
             }
             prev = current;
-            current = current.getNext();
+            current = current.next;
         }
-        prev.setNext(new Entry<>(key, value, null));
+        return null;
     }
 
-    public V get(K key) {
-        int index = index(key);
-        Entry<K, V> current = table[index];
+    private static <K, V> Entry<K, V> firstInBin(Entry<K, V> bin) {
+        return bin instanceof TreeBin<K, V> tree ? tree.first : bin;
+    }
+
+    private Entry<K, V> getEntry(Object key) {
+        int hash = hash(key);
+        Entry<K, V> current = table[indexFor(hash, table.length)];
 
+        if (current instanceof TreeBin<K, V> bin) {
+            return bin.find(bin.root, hash, key);
+        }
         while (current != null) {
-            if (Objects.equals(current.getKey(), key)) {
-                return current.getValue();
+            if (current.hash == hash && Objects.equals(current.key, key)) {
+                return current;
             }
-            current = current.getNext();
+            current = current.next;
         }
         return null;
     }
 
-    public void remove(K key) {
-        int index = index(key);
-        Entry<K, V> current = table[index];
-        Entry<K, V> prev = null;
+    private void treeifyBin(int index) {
+        if (table.length < MIN_TREEIFY_CAPACITY) {
+            resize();
+            return;
+        }
+        table[index] = new TreeBin<>(table[index]);
+    }
 
-        while (current != null) {
-            if (Objects.equals(current.getKey(), key)) {
-                if (prev == null) {
-                    table[index] = current.getNext();
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        Entry<K, V>[] oldTable = table;
+        int oldCap = oldTable.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCap = oldCap << 1;
+        Entry<K, V>[] newTable = new Entry[newCap];
+
+        for (int i = 0; i < oldCap; i++) {
+            Entry<K, V> bin = oldTable[i];
+            if (bin == null) {
+                continue;
+            }
+            // Элемент остается в ячейке i либо переезжает в i + oldCap — это решает один бит хеша
+            Entry<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+            int loCount = 0, hiCount = 0;
+            boolean tree = bin instanceof TreeBin;
+            Entry<K, V> e = tree ? ((TreeBin<K, V>) bin).first : bin;
+            while (e != null) {
+                Entry<K, V> next = e.next;
+                Entry<K, V> moved = tree ? new Entry<>(e.hash, e.key, e.value, null) : e;
+                moved.next = null;
+                if ((e.hash & oldCap) == 0) {
+                    if (loTail == null) loHead = moved; else loTail.next = moved;
+                    loTail = moved;
+                    loCount++;
                 } else {
-                    prev.setNext(current.getNext());
+                    if (hiTail == null) hiHead = moved; else hiTail.next = moved;
+                    hiTail = moved;
+                    hiCount++;
                 }
-                return;
+                e = next;
             }
-            prev = current;
-            current = current.getNext();
+            newTable[i] = loCount > TREEIFY_THRESHOLD ? new TreeBin<>(loHead) : loHead;
+            newTable[i + oldCap] = hiCount > TREEIFY_THRESHOLD ? new TreeBin<>(hiHead) : hiHead;
         }
+        table = newTable;
+        threshold = thresholdFor(newCap);
     }
-    public void display(){
-        for(int i = 0; i < capacity; i++){
-            if(table[i] != null){
-                Entry<K, V> currentNode = table[i];
-                while (currentNode != null){
-                    System.out.println(String.format("Ключ = %s ; Значение = %s", currentNode.getKey(), currentNode.getValue()));
-                    currentNode = currentNode.getNext();
+
+    private int thresholdFor(int cap) {
+        return cap >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) Math.min(cap * loadFactor, Integer.MAX_VALUE);
+    }
+
+    static int hash(Object key) {
+        if (key == null) return 0;
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static int indexFor(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+    static int capacityFor(int expectedSize, float loadFactor) {
+        return tableSizeFor((int) Math.min(Math.ceil(expectedSize / (double) loadFactor), MAXIMUM_CAPACITY));
+    }
+
+    static int tableSizeFor(int capacity) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1);
+        return n < 0 ? 1 : n >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Возвращает класс {@code x}, если он объявлен как {@code C implements Comparable<C>},
+     * иначе {@code null}.
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (x instanceof Comparable) {
+            Class<?> c = x.getClass();
+            if (c == String.class) {
+                return c;
+            }
+            for (Type type : c.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType p
+                        && p.getRawType() == Comparable.class) {
+                    Type[] args = p.getActualTypeArguments();
+                    if (args.length == 1 && args[0] == c) {
+                        return c;
+                    }
                 }
             }
         }
+        return null;
     }
-    private int index(K key) {
-        if (key == null) return 0;
-        return Math.abs(key.hashCode()) % capacity;
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Class<?> kc, Object k, Object x) {
+        return x == null || x.getClass() != kc ? 0 : ((Comparable) k).compareTo(x);
+    }
+
+    static int tieBreakOrder(Object a, Object b) {
+        int d;
+        if (a == null || b == null
+                || (d = a.getClass().getName().compareTo(b.getClass().getName())) == 0) {
+            d = System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1;
+        }
+        return d;
     }
 
     public static void main(String[] args) {
@@ -107,39 +389,493 @@ public class CustomHashMap<K, V> {
         System.out.println(map.get(3));
     }
 
-    public class Entry<K, V>{
-        private K key;
-        private V value;
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CustomHashMap.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry<?, ?> e)) {
+                return false;
+            }
+            Entry<K, V> candidate = getEntry(e.getKey());
+            return candidate != null && candidate.equals(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                removeEntry(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Идет по таблице ячейка за ячейкой; в ячейке-дереве — по списку узлов.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
         private Entry<K, V> next;
+        private Entry<K, V> current;
+        private int index;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            advanceToNextBin();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Entry<K, V> e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            current = e;
+            next = e.next;
+            if (next == null) {
+                advanceToNextBin();
+            }
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            Entry<K, V> e = current;
+            if (e == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            current = null;
+            int bin = indexFor(e.hash, table.length);
+            Entry<K, V> binHead = table[bin];
+            removeEntry(e.key);
+            expectedModCount = modCount;
+            // Ячейка-дерево могла превратиться в новую цепочку: переходим на ее узел
+            if (next != null && binHead instanceof TreeBin && table[bin] != binHead
+                    && indexFor(next.hash, table.length) == bin) {
+                next = getEntry(next.key);
+            }
+        }
+
+        private void advanceToNextBin() {
+            Entry<K, V>[] tab = table;
+            while (next == null && index < tab.length) {
+                next = firstInBin(tab[index++]);
+            }
+        }
+    }
 
-        public Entry(K key, V value, Entry<K, V> next){
+    public static class Entry<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        V value;
+        Entry<K, V> next;
+
+        Entry(int hash, K key, V value, Entry<K, V> next){
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
         }
 
+        @Override
         public K getKey() {
             return key;
         }
 
-        public void setKey(K key) {
-            this.key = key;
-        }
-
+        @Override
         public V getValue() {
             return value;
         }
 
-        public void setValue(V value) {
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
             this.value = value;
+            return old;
         }
 
         public Entry<K, V> getNext() {
             return next;
         }
 
-        public void setNext(Entry<K, V> next) {
-            this.next = next;
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && Objects.equals(key, e.getKey())
+                    && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    static final class TreeNode<K, V> extends Entry<K, V> {
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        TreeNode<K, V> prev;
+        boolean red;
+
+        TreeNode(int hash, K key, V value) {
+            super(hash, key, value, null);
+        }
+    }
+
+    /**
+     * Заголовок ячейки-дерева. Узлы одновременно связаны в красно-черное дерево
+     * (упорядочено по хешу, затем по {@link Comparable}) и в двусвязный список
+     * {@code first/next/prev} для обхода и разбиения при ресайзе.
+     */
+    static final class TreeBin<K, V> extends Entry<K, V> {
+        TreeNode<K, V> root;
+        TreeNode<K, V> first;
+        int count;
+
+        TreeBin(Entry<K, V> chain) {
+            super(0, null, null, null);
+            for (Entry<K, V> e = chain; e != null; e = e.next) {
+                putTreeVal(e.hash, e.key, e.value);
+            }
+        }
+
+        TreeNode<K, V> find(TreeNode<K, V> p, int h, Object k) {
+            Class<?> kc = null;
+            while (p != null) {
+                int ph = p.hash, dir;
+                if (ph > h) {
+                    p = p.left;
+                } else if (ph < h) {
+                    p = p.right;
+                } else if (Objects.equals(p.key, k)) {
+                    return p;
+                } else if (p.left == null) {
+                    p = p.right;
+                } else if (p.right == null) {
+                    p = p.left;
+                } else if ((kc != null || (kc = comparableClassFor(k)) != null)
+                        && (dir = compareComparables(kc, k, p.key)) != 0) {
+                    p = dir < 0 ? p.left : p.right;
+                } else {
+                    TreeNode<K, V> q = find(p.right, h, k);
+                    if (q != null) {
+                        return q;
+                    }
+                    p = p.left;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return существующий узел с этим ключом (значение не меняется) либо
+         * {@code null}, если добавлен новый узел
+         */
+        TreeNode<K, V> putTreeVal(int h, K k, V v) {
+            if (root == null) {
+                root = linkFirst(new TreeNode<>(h, k, v));
+                root.red = false;
+                return null;
+            }
+            Class<?> kc = null;
+            boolean searched = false;
+            TreeNode<K, V> p = root;
+            for (;;) {
+                int ph = p.hash, dir;
+                K pk = p.key;
+                if (ph > h) {
+                    dir = -1;
+                } else if (ph < h) {
+                    dir = 1;
+                } else if (Objects.equals(pk, k)) {
+                    return p;
+                } else if ((kc == null && (kc = comparableClassFor(k)) == null)
+                        || (dir = compareComparables(kc, k, pk)) == 0) {
+                    if (!searched) {
+                        searched = true;
+                        TreeNode<K, V> q;
+                        if ((q = find(p.left, h, k)) != null || (q = find(p.right, h, k)) != null) {
+                            return q;
+                        }
+                    }
+                    dir = tieBreakOrder(k, pk);
+                }
+
+                TreeNode<K, V> xp = p;
+                p = dir <= 0 ? p.left : p.right;
+                if (p == null) {
+                    TreeNode<K, V> x = linkFirst(new TreeNode<>(h, k, v));
+                    x.parent = xp;
+                    if (dir <= 0) {
+                        xp.left = x;
+                    } else {
+                        xp.right = x;
+                    }
+                    fixAfterInsertion(x);
+                    return null;
+                }
+            }
+        }
+
+        void removeTreeNode(TreeNode<K, V> z) {
+            TreeNode<K, V> succ = (TreeNode<K, V>) z.next, pred = z.prev;
+            if (pred == null) {
+                first = succ;
+            } else {
+                pred.next = succ;
+            }
+            if (succ != null) {
+                succ.prev = pred;
+            }
+            count--;
+
+            TreeNode<K, V> x, xParent;
+            boolean removedRed;
+            if (z.left == null) {
+                x = z.right;
+                xParent = z.parent;
+                removedRed = z.red;
+                transplant(z, z.right);
+            } else if (z.right == null) {
+                x = z.left;
+                xParent = z.parent;
+                removedRed = z.red;
+                transplant(z, z.left);
+            } else {
+                TreeNode<K, V> y = z.right;
+                while (y.left != null) {
+                    y = y.left;
+                }
+                removedRed = y.red;
+                x = y.right;
+                if (y.parent == z) {
+                    xParent = y;
+                } else {
+                    xParent = y.parent;
+                    transplant(y, y.right);
+                    y.right = z.right;
+                    y.right.parent = y;
+                }
+                transplant(z, y);
+                y.left = z.left;
+                y.left.parent = y;
+                y.red = z.red;
+            }
+            if (!removedRed) {
+                fixAfterDeletion(x, xParent);
+            }
+            z.parent = z.left = z.right = null;
+        }
+
+        Entry<K, V> untreeify() {
+            Entry<K, V> head = null, tail = null;
+            for (Entry<K, V> e = first; e != null; e = e.next) {
+                Entry<K, V> plain = new Entry<>(e.hash, e.key, e.value, null);
+                if (tail == null) {
+                    head = plain;
+                } else {
+                    tail.next = plain;
+                }
+                tail = plain;
+            }
+            return head;
+        }
+
+        private TreeNode<K, V> linkFirst(TreeNode<K, V> x) {
+            x.next = first;
+            if (first != null) {
+                first.prev = x;
+            }
+            first = x;
+            count++;
+            return x;
+        }
+
+        private void transplant(TreeNode<K, V> u, TreeNode<K, V> v) {
+            if (u.parent == null) {
+                root = v;
+            } else if (u == u.parent.left) {
+                u.parent.left = v;
+            } else {
+                u.parent.right = v;
+            }
+            if (v != null) {
+                v.parent = u.parent;
+            }
+        }
+
+        private void fixAfterInsertion(TreeNode<K, V> x) {
+            x.red = true;
+            while (x != root && x.parent.red) {
+                TreeNode<K, V> xp = x.parent, xpp = xp.parent;
+                if (xp == xpp.left) {
+                    TreeNode<K, V> uncle = xpp.right;
+                    if (isRed(uncle)) {
+                        xp.red = false;
+                        uncle.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.right) {
+                            x = xp;
+                            rotateLeft(x);
+                            xp = x.parent;
+                        }
+                        xp.red = false;
+                        xpp.red = true;
+                        rotateRight(xpp);
+                    }
+                } else {
+                    TreeNode<K, V> uncle = xpp.left;
+                    if (isRed(uncle)) {
+                        xp.red = false;
+                        uncle.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.left) {
+                            x = xp;
+                            rotateRight(x);
+                            xp = x.parent;
+                        }
+                        xp.red = false;
+                        xpp.red = true;
+                        rotateLeft(xpp);
+                    }
+                }
+            }
+            root.red = false;
+        }
+
+        private void fixAfterDeletion(TreeNode<K, V> x, TreeNode<K, V> parent) {
+            while (x != root && !isRed(x)) {
+                if (x == parent.left) {
+                    TreeNode<K, V> w = parent.right;
+                    if (isRed(w)) {
+                        w.red = false;
+                        parent.red = true;
+                        rotateLeft(parent);
+                        w = parent.right;
+                    }
+                    if (!isRed(w.left) && !isRed(w.right)) {
+                        w.red = true;
+                        x = parent;
+                        parent = x.parent;
+                    } else {
+                        if (!isRed(w.right)) {
+                            w.left.red = false;
+                            w.red = true;
+                            rotateRight(w);
+                            w = parent.right;
+                        }
+                        w.red = parent.red;
+                        parent.red = false;
+                        w.right.red = false;
+                        rotateLeft(parent);
+                        x = root;
+                        parent = null;
+                    }
+                } else {
+                    TreeNode<K, V> w = parent.left;
+                    if (isRed(w)) {
+                        w.red = false;
+                        parent.red = true;
+                        rotateRight(parent);
+                        w = parent.left;
+                    }
+                    if (!isRed(w.left) && !isRed(w.right)) {
+                        w.red = true;
+                        x = parent;
+                        parent = x.parent;
+                    } else {
+                        if (!isRed(w.left)) {
+                            w.right.red = false;
+                            w.red = true;
+                            rotateLeft(w);
+                            w = parent.left;
+                        }
+                        w.red = parent.red;
+                        parent.red = false;
+                        w.left.red = false;
+                        rotateRight(parent);
+                        x = root;
+                        parent = null;
+                    }
+                }
+            }
+            if (x != null) {
+                x.red = false;
+            }
+        }
+
+        private void rotateLeft(TreeNode<K, V> p) {
+            TreeNode<K, V> r = p.right;
+            p.right = r.left;
+            if (r.left != null) {
+                r.left.parent = p;
+            }
+            r.parent = p.parent;
+            if (p.parent == null) {
+                root = r;
+            } else if (p == p.parent.left) {
+                p.parent.left = r;
+            } else {
+                p.parent.right = r;
+            }
+            r.left = p;
+            p.parent = r;
+        }
+
+        private void rotateRight(TreeNode<K, V> p) {
+            TreeNode<K, V> l = p.left;
+            p.left = l.right;
+            if (l.right != null) {
+                l.right.parent = p;
+            }
+            l.parent = p.parent;
+            if (p.parent == null) {
+                root = l;
+            } else if (p == p.parent.right) {
+                p.parent.right = l;
+            } else {
+                p.parent.left = l;
+            }
+            l.right = p;
+            p.parent = l;
+        }
+
+        private static boolean isRed(TreeNode<?, ?> node) {
+            return node != null && node.red;
         }
     }
 }
@@ -0,0 +1,165 @@
+package org.ausiankou;
+
+import java.util.Objects;
+
+/**
+ * Карта с примитивными ключами {@code long} (например, {@code User.id}).
+ * <p>
+ * Открытая адресация с линейным пробированием по параллельным массивам
+ * {@code long[]} и {@code Object[]}: ни ключи, ни записи не упаковываются в объекты,
+ * а {@link #get(long)} не выделяет памяти. Удаление сдвигает следующие элементы
+ * цепочки назад, поэтому «надгробий» нет и поиск не деградирует со временем.
+ * Пустая ячейка — это {@code null} в массиве значений, поэтому значения
+ * {@code null} не допускаются.
+ */
+public class LongObjectMap<V> {
+    static final int DEFAULT_CAPACITY = 16;
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private final float loadFactor;
+    private int threshold;
+    private int size;
+
+    public LongObjectMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(CustomHashMap.tableSizeFor((int) Math.min(Math.ceil(expectedSize / loadFactor), MAXIMUM_CAPACITY)));
+    }
+
+    public void put(long key, V value) {
+        Objects.requireNonNull(value);
+        int i = index(key);
+        Object current;
+        while ((current = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = index(key);
+        Object current;
+        while ((current = values[i]) != null) {
+            if (keys[i] == key) {
+                return (V) current;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = index(key);
+        Object current;
+        while ((current = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return (V) current;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void display() {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                System.out.println(String.format("Ключ = %s ; Значение = %s", keys[i], values[i]));
+            }
+        }
+    }
+
+    /**
+     * Закрывает дыру на месте {@code gap}: элемент, чья идеальная ячейка лежит
+     * циклически не после дыры, переносится в нее, и дыра сдвигается дальше.
+     */
+    private void shiftBack(int gap) {
+        int j = (gap + 1) & mask;
+        while (values[j] != null) {
+            int ideal = index(keys[j]);
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        if (values.length >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("LongObjectMap is full");
+            }
+            threshold = MAXIMUM_CAPACITY - 1;
+            return;
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            Object value = oldValues[j];
+            if (value != null) {
+                int i = index(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    private int index(long key) {
+        return mix(key) & mask;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,520 @@
+package org.ausiankou;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Хеш-таблица {@code long -> byte[]}, живущая в файле, отображенном в память
+ * через {@link FileChannel#map}. Данные не лежат в куче Java и переживают рестарт:
+ * повторное открытие после корректного {@link #close()} только отображает файл.
+ * <p>
+ * Раскладка файла:
+ * <pre>
+ * [заголовок A | заголовок B | ...]  страница 4 КБ
+ * [слоты: key(8) offset(8)] x capacity
+ * [данные: сегменты по 64 МБ, записи key(8) length(4) bytes]
+ * </pre>
+ * Слоты — открытая адресация с линейным пробированием; {@code offset} 0 означает
+ * пустой слот, -1 — удаленный. Область данных только дописывается и служит журналом:
+ * каждое {@code put} добавляет запись значения, каждое {@code remove} — запись-надгробие
+ * с длиной -1. Хвост сегмента, в который не помещается запись, помечается длиной -2.
+ * <p>
+ * Заголовок хранится в двух копиях с номером поколения и CRC32; {@link #commit()}
+ * сначала сбрасывает на диск данные и слоты, затем пишет следующую копию
+ * заголовка. При открытии выбирается валидная копия с большим номером. Слоты
+ * меняются на месте, и после сбоя их нельзя отличить от зафиксированных, поэтому
+ * если файл не был закрыт корректно, таблица слотов строится заново проигрыванием
+ * журнала до зафиксированной границы данных. Изменения после последнего
+ * {@code commit()}, включая перезапись и удаление зафиксированных ключей, при сбое
+ * теряются; время восстановления пропорционально объему данных.
+ * <p>
+ * Удаленные слоты занимают место в таблице, пока она не будет перестроена:
+ * когда занятых слотов становится больше допустимого, а заметная их часть
+ * удалена, {@code put} перестраивает таблицу только по живым ключам. Журнал
+ * при этом не сокращается — его переписывает {@link #compact()}, когда
+ * {@link #dataSize()} заметно больше объема живых записей.
+ * <p>
+ * Емкость ограничена {@value #MAXIMUM_CAPACITY} слотами: таблица слотов
+ * отображается одним буфером, а он не может быть больше 2 ГБ.
+ * <p>
+ * Класс не потокобезопасен.
+ */
+public class MappedLongHashMap implements Closeable {
+    static final long MAGIC = 0x4155534D41504844L;
+    static final int VERSION = 2;
+    static final int HEADER_COPY_SIZE = 64;
+    static final int HEADER_REGION_SIZE = 4096;
+    static final int SLOT_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 12;
+    static final int SEGMENT_SIZE = 64 << 20;
+    static final float MAX_LOAD_FACTOR = 0.75f;
+    static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    private static final int TOMBSTONE = -1;
+    private static final int PADDING = -2;
+    private static final int FLAG_CLEAN = 1;
+
+    private final Path path;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel channel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int mask;
+    private long dataStart;
+
+    private long sequence;
+    private long size;
+    private long used;
+    private long dataEnd;
+    private long committedDataEnd;
+
+    private MappedLongHashMap(Path path, FileChannel channel, int capacity, boolean create) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        long indexSize = HEADER_REGION_SIZE + (long) capacity * SLOT_SIZE;
+        this.dataStart = (indexSize + HEADER_REGION_SIZE - 1) / HEADER_REGION_SIZE * HEADER_REGION_SIZE;
+        this.index = channel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+        if (create) {
+            dataEnd = dataStart;
+            committedDataEnd = dataStart;
+        }
+    }
+
+    /**
+     * Открывает существующий файл или создает новый с таблицей на
+     * {@code capacity} слотов (округляется до степени двойки). Для
+     * существующего файла используется сохраненная емкость.
+     */
+    public static MappedLongHashMap open(Path path, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Capacity " + capacity + " exceeds maximum " + MAXIMUM_CAPACITY
+                    + ": the slot table must fit into a single 2 GB mapping");
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            MappedLongHashMap map;
+            if (channel.size() == 0) {
+                map = new MappedLongHashMap(path, channel, CustomHashMap.tableSizeFor(capacity), true);
+                map.writeHeader(false);
+            } else {
+                map = recover(path, channel);
+            }
+            return map;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Failed to open mapped map " + path, e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    public void put(long key, byte[] value) {
+        Objects.requireNonNull(value);
+        if (value.length > SEGMENT_SIZE - RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Value too large: " + value.length + " bytes");
+        }
+        int slot = findSlot(key);
+        if (needsFreshSlot(slot) && used - size >= Math.max(1, capacity >>> 4)) {
+            // Заметная часть занятых слотов — удаленные: таблица перестраивается, а не объявляется полной
+            rehash();
+            slot = findSlot(key);
+        }
+        if (needsFreshSlot(slot)) {
+            // Проверка до записи в журнал: иначе восстановление проиграло бы put, который не удался
+            throw new IllegalStateException("MappedLongHashMap is full, capacity " + capacity);
+        }
+        link(slot, key, append(key, value, value.length));
+    }
+
+    public byte[] get(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        return read(slotOffset(slot));
+    }
+
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    public boolean remove(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        append(key, null, TOMBSTONE);
+        unlink(slot);
+        return true;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Объем журнала данных в байтах, включая перезаписанные и удаленные значения. */
+    public long dataSize() {
+        return dataEnd - dataStart;
+    }
+
+    public void display() {
+        for (int i = 0; i < capacity; i++) {
+            long offset = slotOffset(i);
+            if (offset > 0) {
+                long key = index.getLong(slotPosition(i));
+                System.out.println(String.format("Ключ = %s ; Значение = %s байт", key, length(offset)));
+            }
+        }
+    }
+
+    /**
+     * Делает все изменения долговечными: сбрасывает данные и слоты на диск,
+     * затем атомарно переключает заголовок.
+     */
+    public void commit() {
+        writeHeader(false);
+    }
+
+    /**
+     * Переписывает журнал, оставляя только живые записи, и делает все изменения
+     * долговечными, как {@link #commit()}. Копия собирается в соседнем файле,
+     * закрывается корректно и атомарно подменяет исходный: при сбое до подмены
+     * остается прежний файл, после — новый, недописанная копия удаляется при
+     * следующем сжатии.
+     */
+    public void compact() {
+        Path copyPath = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(copyPath);
+            try (MappedLongHashMap copy = open(copyPath, capacity)) {
+                for (int i = 0; i < capacity; i++) {
+                    long offset = slotOffset(i);
+                    if (offset > 0) {
+                        long key = index.getLong(slotPosition(i));
+                        copy.link(copy.findSlot(key), key, copy.append(key, read(offset), length(offset)));
+                    }
+                }
+            }
+            Files.move(copyPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory(path);
+            closeQuietly(channel);
+            adopt(recover(path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact mapped map " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            writeHeader(true);
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * @return индекс слота с ключом либо {@code -(insertionPoint + 1)}
+     */
+    private int findSlot(long key) {
+        int i = LongObjectMap.mix(key) & mask;
+        int firstDeleted = -1;
+        for (int probes = 0; probes < capacity; probes++) {
+            long offset = slotOffset(i);
+            if (offset == EMPTY) {
+                return -(firstDeleted >= 0 ? firstDeleted : i) - 1;
+            }
+            if (offset == DELETED) {
+                if (firstDeleted < 0) {
+                    firstDeleted = i;
+                }
+            } else if (index.getLong(slotPosition(i)) == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (firstDeleted < 0) {
+            throw new IllegalStateException("MappedLongHashMap is full, capacity " + capacity);
+        }
+        return -firstDeleted - 1;
+    }
+
+    private void link(int slot, long key, long offset) {
+        if (slot >= 0) {
+            index.putLong(slotPosition(slot) + 8, offset);
+            return;
+        }
+        int target = -slot - 1;
+        if (slotOffset(target) == EMPTY) {
+            used++;
+        }
+        // Ключ пишется раньше смещения: слот становится видимым только целиком
+        index.putLong(slotPosition(target), key);
+        index.putLong(slotPosition(target) + 8, offset);
+        size++;
+    }
+
+    private void unlink(int slot) {
+        index.putLong(slotPosition(slot) + 8, DELETED);
+        size--;
+    }
+
+    /** Вставка займет пустой слот, а их запас по коэффициенту загрузки исчерпан. */
+    private boolean needsFreshSlot(int slot) {
+        return slot < 0 && slotOffset(-slot - 1) == EMPTY && used + 1 > (long) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Перестраивает таблицу слотов по живым ключам, освобождая удаленные
+     * слоты. Журнал не меняется, а таблица после сбоя все равно строится
+     * заново по нему, поэтому перестройка не требует commit().
+     */
+    private void rehash() {
+        long[] keys = new long[(int) size];
+        long[] offsets = new long[(int) size];
+        int live = 0;
+        for (int i = 0; i < capacity; i++) {
+            long offset = slotOffset(i);
+            if (offset > 0) {
+                keys[live] = index.getLong(slotPosition(i));
+                offsets[live++] = offset;
+            }
+        }
+        clearSlots();
+        for (int i = 0; i < live; i++) {
+            link(findSlot(keys[i]), keys[i], offsets[i]);
+        }
+    }
+
+    private void clearSlots() {
+        for (int i = 0; i < capacity; i++) {
+            index.putLong(slotPosition(i), 0);
+            index.putLong(slotPosition(i) + 8, EMPTY);
+        }
+        size = 0;
+        used = 0;
+    }
+
+    private byte[] read(long offset) {
+        byte[] value = new byte[length(offset)];
+        segment(offset).get(positionInSegment(offset) + RECORD_HEADER_SIZE, value);
+        return value;
+    }
+
+    private int length(long offset) {
+        return segment(offset).getInt(positionInSegment(offset) + 8);
+    }
+
+    /**
+     * Дописывает запись в журнал данных; {@code value} null для надгробия.
+     */
+    private long append(long key, byte[] value, int length) {
+        long offset = dataEnd;
+        int recordSize = RECORD_HEADER_SIZE + Math.max(length, 0);
+        int position = positionInSegment(offset);
+        if (position + recordSize > SEGMENT_SIZE) {
+            // Запись не пересекает границу сегмента
+            if (position + RECORD_HEADER_SIZE <= SEGMENT_SIZE) {
+                segment(offset).putInt(position + 8, PADDING);
+            }
+            offset = nextSegment(offset);
+            position = 0;
+        }
+        ByteBuffer segment = segment(offset);
+        segment.putLong(position, key);
+        segment.putInt(position + 8, length);
+        if (value != null) {
+            segment.put(position + RECORD_HEADER_SIZE, value);
+        }
+        dataEnd = offset + recordSize;
+        return offset;
+    }
+
+    private long nextSegment(long offset) {
+        return dataStart + ((offset - dataStart) / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        int number = (int) ((offset - dataStart) / SEGMENT_SIZE);
+        while (segments.size() <= number) {
+            long start = dataStart + (long) segments.size() * SEGMENT_SIZE;
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map data segment at " + start, e);
+            }
+        }
+        return segments.get(number);
+    }
+
+    private int positionInSegment(long offset) {
+        return (int) ((offset - dataStart) % SEGMENT_SIZE);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(slotPosition(slot) + 8);
+    }
+
+    private static int slotPosition(int slot) {
+        // Не переполняется: MAXIMUM_CAPACITY * SLOT_SIZE + HEADER_REGION_SIZE < 2^31
+        return HEADER_REGION_SIZE + slot * SLOT_SIZE;
+    }
+
+    private void writeHeader(boolean clean) {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        index.force();
+        sequence++;
+        int position = (int) (sequence & 1) * HEADER_COPY_SIZE;
+        index.putLong(position, MAGIC);
+        index.putInt(position + 8, VERSION);
+        index.putInt(position + 12, clean ? FLAG_CLEAN : 0);
+        index.putLong(position + 16, sequence);
+        index.putLong(position + 24, capacity);
+        index.putLong(position + 32, size);
+        index.putLong(position + 40, used);
+        index.putLong(position + 48, dataEnd);
+        index.putLong(position + 56, checksum(index, position));
+        index.force(position, HEADER_COPY_SIZE);
+        committedDataEnd = dataEnd;
+    }
+
+    private static MappedLongHashMap recover(Path path, FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2 * HEADER_COPY_SIZE);
+        channel.read(header, 0);
+        int best = -1;
+        for (int position = 0; position < 2 * HEADER_COPY_SIZE; position += HEADER_COPY_SIZE) {
+            if (header.getLong(position) == MAGIC && header.getInt(position + 8) == VERSION
+                    && header.getLong(position + 56) == checksum(header, position)
+                    && (best < 0 || header.getLong(position + 16) > header.getLong(best + 16))) {
+                best = position;
+            }
+        }
+        if (best < 0) {
+            throw new IllegalStateException("No valid header found, file is not a MappedLongHashMap");
+        }
+
+        MappedLongHashMap map = new MappedLongHashMap(path, channel, (int) header.getLong(best + 24), false);
+        map.sequence = header.getLong(best + 16);
+        map.size = header.getLong(best + 32);
+        map.used = header.getLong(best + 40);
+        map.dataEnd = header.getLong(best + 48);
+        map.committedDataEnd = map.dataEnd;
+        if ((header.getInt(best + 12) & FLAG_CLEAN) == 0) {
+            map.replayCommittedRecords();
+        }
+        // Пока файл открыт, заголовок помечен как «грязный»
+        map.writeHeader(false);
+        return map;
+    }
+
+    /**
+     * Строит таблицу слотов с нуля по журналу данных до {@code committedDataEnd}.
+     * Проигрывание идет теми же {@link #link}/{@link #unlink}, что и исходные
+     * операции, поэтому получается ровно таблица на момент последнего commit().
+     */
+    private void replayCommittedRecords() {
+        clearSlots();
+        long offset = dataStart;
+        while (offset + RECORD_HEADER_SIZE <= committedDataEnd) {
+            int position = positionInSegment(offset);
+            if (position + RECORD_HEADER_SIZE > SEGMENT_SIZE) {
+                offset = nextSegment(offset);
+                continue;
+            }
+            ByteBuffer segment = segment(offset);
+            long key = segment.getLong(position);
+            int length = segment.getInt(position + 8);
+            if (length == PADDING) {
+                offset = nextSegment(offset);
+                continue;
+            }
+            if (length < TOMBSTONE || offset + RECORD_HEADER_SIZE + Math.max(length, 0) > committedDataEnd) {
+                throw new IllegalStateException("Corrupted record at offset " + offset);
+            }
+            int slot = findSlot(key);
+            if (length == TOMBSTONE) {
+                if (slot >= 0) {
+                    unlink(slot);
+                }
+                offset += RECORD_HEADER_SIZE;
+            } else {
+                if (needsFreshSlot(slot)) {
+                    // Живых ключей не больше, чем было при исходной вставке, место найдется
+                    rehash();
+                    slot = findSlot(key);
+                }
+                link(slot, key, offset);
+                offset += RECORD_HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /** Забирает файл и состояние у карты, открытой поверх сжатой копии. */
+    private void adopt(MappedLongHashMap other) {
+        channel = other.channel;
+        index = other.index;
+        segments.clear();
+        segments.addAll(other.segments);
+        capacity = other.capacity;
+        mask = other.mask;
+        dataStart = other.dataStart;
+        sequence = other.sequence;
+        size = other.size;
+        used = other.used;
+        dataEnd = other.dataEnd;
+        committedDataEnd = other.committedDataEnd;
+    }
+
+    private static void forceDirectory(Path path) {
+        // Переименование долговечно только после сброса каталога; не везде каталог открывается как файл
+        try (FileChannel directory = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ignored) {
+            // переименование уже выполнено, остается положиться на файловую систему
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer, int position) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position, 56));
+        return crc.getValue();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // канал уже не используется
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.ausiankou.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    // Caffeine вытесняет по W-TinyLFU; recordStats нужен для метрик cache.gets/cache.evictions в Micrometer
+    @Value("${app.cache.users.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}")
+    private String usersCacheSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheSpecification(usersCacheSpec);
+        caffeineCacheManager.setCacheNames(List.of(USERS_CACHE));
+        caffeineCacheManager.setAllowNullValues(false);
+
+        // Инвалидация применяется только после коммита транзакции. Загрузка идет с sync = true
+        // внутри вычисления ключа в Caffeine, поэтому сброс ключа ждет загрузку, начатую до коммита,
+        // и удаляет ее результат: устаревшая строка не остается в кэше после сброса.
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
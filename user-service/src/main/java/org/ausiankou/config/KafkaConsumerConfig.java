@@ -0,0 +1,55 @@
+package org.ausiankou.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.events.SchemaRegistry;
+import org.ausiankou.serialization.UserEventDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.application.name:user-service}")
+    private String applicationName;
+
+    @Value("${app.cache.eviction.instance-id}")
+    private String instanceId;
+
+    @Bean
+    public ConsumerFactory<String, UserKafkaEvent> cacheEvictionConsumerFactory(SchemaRegistry schemaRegistry) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // Своя группа у каждой реплики: инвалидацию должны получить все экземпляры.
+        // Имя группы постоянное для экземпляра, поэтому перезапуск не оставляет в брокере новую группу
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-cache-" + instanceId);
+        // Кэш новой реплики пуст, история не нужна; после перезапуска лишние сбросы безвредны
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+
+        return new DefaultKafkaConsumerFactory<>(config,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new UserEventDeserializer(schemaRegistry)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserKafkaEvent> cacheEvictionListenerContainerFactory(
+            ConsumerFactory<String, UserKafkaEvent> cacheEvictionConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, UserKafkaEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cacheEvictionConsumerFactory);
+        return factory;
+    }
+}
@@ -1,10 +1,15 @@
 package org.ausiankou.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.ausiankou.events.SchemaRegistry;
+import org.ausiankou.serialization.UserEventBinarySerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -19,21 +24,68 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${app.kafka.topic.user-events.partitions:6}")
+    private int userEventsPartitions;
+
+    @Value("${app.kafka.topic.user-events.replicas:1}")
+    private short userEventsReplicas;
+
+    /** binary — компактный формат по схеме user-event, json — прежний JsonSerializer. */
+    @Value("${app.kafka.serialization.format:binary}")
+    private String serializationFormat;
+
+    @Value("${app.kafka.producer.batch-size:131072}")
+    private int batchSize;
+
+    @Value("${app.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${app.kafka.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+
+    @Value("${app.kafka.producer.max-block-ms:5000}")
+    private long maxBlockMs;
+
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(SchemaRegistry schemaRegistry) {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all"); // Гарантированная доставка
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
         config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Пропускная способность: записи копятся до batch.size или linger.ms и сжимаются пачкой
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        // send() не должен надолго блокировать поток запроса, когда брокер недоступен
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
 
-        return new DefaultKafkaProducerFactory<>(config);
+        Serializer<Object> valueSerializer = "json".equalsIgnoreCase(serializationFormat)
+                ? new JsonSerializer<>()
+                : new UserEventBinarySerializer(schemaRegistry);
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(), valueSerializer);
+    }
+
+    /**
+     * Топик создается или расширяется KafkaAdmin при старте. Партиция — единица
+     * параллелизма потребителей; события одного пользователя идут в одну партицию по ключу.
+     * Увеличение числа партиций меняет привязку ключей, поэтому делать его лучше на пустом топике.
+     */
+    @Bean
+    public NewTopic userEventsTopic() {
+        return TopicBuilder.name("user-events")
+                .partitions(userEventsPartitions)
+                .replicas(userEventsReplicas)
+                .build();
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
\ No newline at end of file
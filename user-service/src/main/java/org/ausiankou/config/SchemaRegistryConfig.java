@@ -0,0 +1,23 @@
+package org.ausiankou.config;
+
+import org.ausiankou.events.FileSchemaRegistry;
+import org.ausiankou.events.SchemaRegistry;
+import org.ausiankou.events.UserEventSchemas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class SchemaRegistryConfig {
+
+    /** Общий с notification-service каталог схем; пусто — только схемы из модуля user-events. */
+    @Value("${app.kafka.schema-registry.dir:}")
+    private String registryDir;
+
+    @Bean
+    public SchemaRegistry schemaRegistry() {
+        return new FileSchemaRegistry(registryDir.isBlank() ? null : Path.of(registryDir), UserEventSchemas.all());
+    }
+}
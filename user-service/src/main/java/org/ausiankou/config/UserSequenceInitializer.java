@@ -0,0 +1,38 @@
+package org.ausiankou.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выравнивает {@code users_seq} по уже выданным id. Раньше id пользователей
+ * выдавал IDENTITY-столбец, а последовательность, созданная
+ * {@code ddl-auto=update}, начинается с 1, и первые же INSERT совпали бы с
+ * существующими строками. Зависимость от {@code entityManagerFactory}
+ * гарантирует, что схема уже обновлена; запросы и слушатели Kafka стартуют
+ * позже, поэтому до выравнивания id никто не выдает.
+ * <p>
+ * Последовательность только сдвигается вперед: если она уже впереди
+ * {@code max(id)}, запрос ничего не меняет.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class UserSequenceInitializer {
+
+    private static final String ALIGN_SQL = "select setval('users_seq', m.max_id) "
+            + "from (select max(id) as max_id from users) m, users_seq s "
+            + "where m.max_id > s.last_value";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequence() {
+        jdbcTemplate.queryForList(ALIGN_SQL, Long.class)
+                .forEach(value -> log.warn("users_seq сдвинута до максимального id пользователя: {}", value));
+    }
+}
@@ -1,5 +1,6 @@
 package org.ausiankou.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,20 +13,31 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.ausiankou.dto.BulkItemResultDto;
+import org.ausiankou.dto.UserBulkUpdateDto;
 import org.ausiankou.dto.UserRequestDto;
 import org.ausiankou.dto.UserResponseDto;
 import org.ausiankou.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -36,6 +48,10 @@ public class UserController {
 
     private final UserService userService;
     private final UserModelAssembler userModelAssembler;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.data.web.pageable.max-page-size:50}")
+    private int maxPageSize;
 
     @Operation(
             summary = "Создать нового пользователя",
@@ -72,20 +88,79 @@ public class UserController {
 
     @Operation(
             summary = "Получить всех пользователей",
-            description = "Возвращает список пользователей с пагинацией"
+            description = "Возвращает страницу пользователей с id больше after, отсортированных по id. "
+                    + "Ссылка next ведет на следующую страницу"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Успешно получен список пользователей")
     })
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<UserResponseDto>>> getAllUsers() {
-        List<UserResponseDto> users = userService.getAllUsers();
+    public ResponseEntity<CollectionModel<EntityModel<UserResponseDto>>> getAllUsers(
+            @Parameter(description = "ID последнего пользователя предыдущей страницы", example = "10")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Размер страницы", example = "10")
+            @RequestParam(defaultValue = "${spring.data.web.pageable.default-page-size:10}") Integer size) {
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        Slice<UserResponseDto> users = userService.getUsers(after, pageSize);
 
         List<EntityModel<UserResponseDto>> userModels = users.stream()
                 .map(userModelAssembler::toModel)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(CollectionModel.of(userModels));
+        CollectionModel<EntityModel<UserResponseDto>> collectionModel = CollectionModel.of(userModels,
+                linkTo(methodOn(UserController.class).getAllUsers(after, pageSize)).withSelfRel());
+        if (users.hasNext()) {
+            Long lastId = users.getContent().get(users.getNumberOfElements() - 1).getId();
+            collectionModel.add(linkTo(methodOn(UserController.class).getAllUsers(lastId, pageSize))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        return ResponseEntity.ok(collectionModel);
+    }
+
+    @Operation(
+            summary = "Получить пользователей по списку ID",
+            description = "Возвращает пользователей по списку id одним запросом к базе, в порядке запроса. "
+                    + "Несуществующие id пропускаются, повторы отбрасываются"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Найденные пользователи"),
+            @ApiResponse(responseCode = "400", description = "Больше id, чем максимальный размер страницы")
+    })
+    @GetMapping("/batch")
+    public ResponseEntity<CollectionModel<EntityModel<UserResponseDto>>> getUsersByIds(
+            @Parameter(description = "ID пользователей через запятую", example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        if (ids.size() > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<EntityModel<UserResponseDto>> userModels = userService.getUsersByIds(ids).stream()
+                .map(userModelAssembler::toModel)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(CollectionModel.of(userModels,
+                linkTo(methodOn(UserController.class).getUsersByIds(ids)).withSelfRel()));
+    }
+
+    @Operation(
+            summary = "Выгрузить всех пользователей",
+            description = "Потоково отдает всех пользователей в формате NDJSON, по одному JSON-объекту на строку"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка пользователей")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> userService.exportUsers(user -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(user));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @Operation(
@@ -123,6 +198,44 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Создать пользователей пакетом",
+            description = "Создает пользователей одной транзакцией с JDBC-пакетированием. "
+                    + "Возвращает результат по каждому элементу в порядке запроса"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, статус каждого элемента в ответе")
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDto>> createUsers(@RequestBody List<UserRequestDto> userRequests) {
+        return ResponseEntity.ok(userService.createUsers(userRequests));
+    }
+
+    @Operation(
+            summary = "Обновить пользователей пакетом",
+            description = "Обновляет пользователей по id одной транзакцией. "
+                    + "Возвращает результат по каждому элементу в порядке запроса"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, статус каждого элемента в ответе")
+    })
+    @PutMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDto>> updateUsers(@RequestBody List<UserBulkUpdateDto> userUpdates) {
+        return ResponseEntity.ok(userService.updateUsers(userUpdates));
+    }
+
+    @Operation(
+            summary = "Удалить пользователей пакетом",
+            description = "Удаляет пользователей по списку id. Возвращает результат по каждому элементу в порядке запроса"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, статус каждого элемента в ответе")
+    })
+    @DeleteMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDto>> deleteUsers(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(userService.deleteUsers(ids));
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     @ApiResponse(responseCode = "404", description = "Ресурс не найден")
     public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
@@ -17,7 +17,7 @@ public class UserModelAssembler implements RepresentationModelAssembler<UserResp
                 linkTo(methodOn(UserController.class).getUserById(user.getId())).withSelfRel(),
                 linkTo(methodOn(UserController.class).updateUser(user.getId(), null)).withRel("update"),
                 linkTo(methodOn(UserController.class).deleteUser(user.getId())).withRel("delete"),
-                linkTo(methodOn(UserController.class).getAllUsers()).withRel("users")
+                linkTo(methodOn(UserController.class).getAllUsers(null, null)).withRel("users")
         );
     }
 }
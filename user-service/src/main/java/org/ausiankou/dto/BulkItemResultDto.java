@@ -0,0 +1,39 @@
+package org.ausiankou.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат обработки одного элемента пакетного запроса")
+public class BulkItemResultDto {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, INVALID, CONFLICT, NOT_FOUND
+    }
+
+    @Schema(description = "Позиция элемента в запросе", example = "0")
+    private int index;
+
+    @Schema(description = "ID пользователя, если он известен", example = "1")
+    private Long id;
+
+    @Schema(description = "Итог обработки элемента", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "Причина отказа", example = "Email уже существует")
+    private String message;
+
+    public static BulkItemResultDto of(int index, Long id, Status status) {
+        return new BulkItemResultDto(index, id, status, null);
+    }
+
+    public static BulkItemResultDto failed(int index, Long id, Status status, String message) {
+        return new BulkItemResultDto(index, id, status, message);
+    }
+}
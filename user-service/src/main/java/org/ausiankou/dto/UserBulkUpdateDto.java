@@ -0,0 +1,23 @@
+package org.ausiankou.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "DTO элемента пакетного обновления пользователей")
+public class UserBulkUpdateDto extends UserRequestDto {
+
+    @NotNull(message = "Id is required")
+    @Schema(description = "ID обновляемого пользователя", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long id;
+
+    public UserBulkUpdateDto(Long id, String name, String email, Integer age) {
+        super(name, email, age);
+        this.id = id;
+    }
+}
@@ -10,8 +10,17 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 public class UserKafkaEvent {
+    /** Служебное событие: реплики user-service сбрасывают пользователя из локального кэша. */
+    public static final String USER_CACHE_EVICT = "USER_CACHE_EVICT";
+
     private String eventType;
     private String email;
     private String username;
     private Long userId;
+    /** Уникален для события и сохраняется при повторных отправках: по нему потребители отбрасывают дубли. */
+    private String eventId;
+
+    public UserKafkaEvent(String eventType, String email, String username, Long userId) {
+        this(eventType, email, username, userId, null);
+    }
 }
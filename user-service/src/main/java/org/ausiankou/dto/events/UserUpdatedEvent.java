@@ -0,0 +1,18 @@
+package org.ausiankou.dto.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class UserUpdatedEvent extends ApplicationEvent {
+    private final Long userId;
+    private final String email;
+    private final String username;
+
+    public UserUpdatedEvent(Object source, Long userId, String email, String username) {
+        super(source);
+        this.userId = userId;
+        this.email = email;
+        this.username = username;
+    }
+}
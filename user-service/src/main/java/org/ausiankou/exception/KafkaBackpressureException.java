@@ -0,0 +1,10 @@
+package org.ausiankou.exception;
+
+/**
+ * Окно неподтвержденных записей Kafka заполнено дольше допустимого времени ожидания.
+ */
+public class KafkaBackpressureException extends RuntimeException {
+    public KafkaBackpressureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package org.ausiankou.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие, ожидающее публикации в Kafka. Пишется в той же транзакции, что и
+ * изменение пользователя, и удаляется ретранслятором после подтверждения брокера.
+ * <p>
+ * Ретранслятор публикует события пользователя в порядке {@code id}, поэтому
+ * идентификатор берется из последовательности без пула ({@code allocationSize = 1}):
+ * событие пользователя создается только после фиксации его предыдущего события,
+ * и nextval для него всегда больше, на какой бы реплике оно ни создавалось.
+ * При пуле каждая реплика брала бы id из своего диапазона, и позднее событие
+ * могло бы получить меньший id.
+ */
+@Entity
+@Table(name = "user_outbox", indexes = @Index(name = "idx_user_outbox_aggregate", columnList = "aggregate_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_outbox_seq")
+    @SequenceGenerator(name = "user_outbox_seq", sequenceName = "user_outbox_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate(){
+        createdAt = LocalDateTime.now();
+    }
+}
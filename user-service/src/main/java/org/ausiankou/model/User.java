@@ -16,7 +16,11 @@ import java.time.LocalDateTime;
 @Builder
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Последовательность с pooled-оптимизатором: id выдаются блоками без обращения к БД,
+    // поэтому Hibernate может пакетировать INSERT (с IDENTITY пакетирование отключено).
+    // Id, выданные прежним IDENTITY-столбцом, учитывает UserSequenceInitializer
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
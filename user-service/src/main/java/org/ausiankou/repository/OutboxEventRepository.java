@@ -0,0 +1,24 @@
+package org.ausiankou.repository;
+
+import org.ausiankou.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Транзакционная advisory-блокировка шарда: шард публикует только один ретранслятор,
+     * поэтому события одного пользователя не обгоняют друг друга.
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLockShard(@Param("key") long key);
+
+    @Query(value = "select * from user_outbox where mod(aggregate_id, :shards) = :shard "
+            + "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockBatch(@Param("shards") int shards, @Param("shard") int shard, @Param("limit") int limit);
+}
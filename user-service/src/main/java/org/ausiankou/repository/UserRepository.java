@@ -1,10 +1,42 @@
 package org.ausiankou.repository;
 
+import jakarta.persistence.QueryHint;
 import org.ausiankou.model.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
     boolean existsByEmail(String email);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Keyset-пагинация: {@code where id > :afterId order by id limit :size + 1}.
+     * Страница всегда первая, поэтому OFFSET и count-запроса нет.
+     */
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Курсорное чтение всей таблицы. Вызывать внутри транзакции и закрывать поток.
+     */
+    @Query("select u from User u order by u.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAllOrderById();
 }
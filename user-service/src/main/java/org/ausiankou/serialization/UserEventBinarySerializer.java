@@ -0,0 +1,34 @@
+package org.ausiankou.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.events.BinaryRecordCodec;
+import org.ausiankou.events.Schema;
+import org.ausiankou.events.SchemaRegistry;
+
+/**
+ * Сериализует {@link UserKafkaEvent} в бинарный формат схемы user-event.
+ * Схема регистрируется один раз при создании, в сообщение пишется только ее id.
+ */
+public class UserEventBinarySerializer implements Serializer<Object> {
+
+    private final BinaryRecordCodec codec;
+    private final Schema writerSchema;
+
+    public UserEventBinarySerializer(SchemaRegistry registry) {
+        this.codec = new BinaryRecordCodec(registry);
+        this.writerSchema = registry.register(UserEventRecords.schema());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (!(data instanceof UserKafkaEvent event)) {
+            throw new SerializationException("Unsupported type for user-events: " + data.getClass().getName());
+        }
+        return codec.encode(UserEventRecords.toRecord(event, writerSchema));
+    }
+}
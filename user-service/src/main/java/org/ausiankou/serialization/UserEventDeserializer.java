@@ -0,0 +1,50 @@
+package org.ausiankou.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.events.BinaryRecordCodec;
+import org.ausiankou.events.SchemaRegistry;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Читает события user-events в любом из форматов: бинарные записи по схеме
+ * и JSON (сообщения, записанные до перехода или с {@code app.kafka.serialization.format=json}).
+ */
+public class UserEventDeserializer implements Deserializer<UserKafkaEvent> {
+
+    private final BinaryRecordCodec codec;
+    private final JsonDeserializer<UserKafkaEvent> jsonDeserializer;
+
+    public UserEventDeserializer(SchemaRegistry registry) {
+        this.codec = new BinaryRecordCodec(registry);
+        this.jsonDeserializer = new JsonDeserializer<>(UserKafkaEvent.class, false);
+        this.jsonDeserializer.ignoreTypeHeaders();
+    }
+
+    @Override
+    public UserKafkaEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public UserKafkaEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BinaryRecordCodec.isBinary(data)) {
+            try {
+                return UserEventRecords.fromRecord(codec.decode(data, UserEventRecords.schema()));
+            } catch (RuntimeException e) {
+                throw new SerializationException("Failed to decode binary user event", e);
+            }
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
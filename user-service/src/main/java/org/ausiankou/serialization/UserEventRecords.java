@@ -0,0 +1,44 @@
+package org.ausiankou.serialization;
+
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.events.GenericRecord;
+import org.ausiankou.events.Schema;
+import org.ausiankou.events.UserEventSchemas;
+
+/**
+ * Перенос {@link UserKafkaEvent} в запись схемы user-event и обратно без рефлексии.
+ */
+final class UserEventRecords {
+
+    private static final Schema SCHEMA = UserEventSchemas.CURRENT;
+    private static final int EVENT_TYPE = SCHEMA.positionOf(UserEventSchemas.EVENT_TYPE);
+    private static final int EMAIL = SCHEMA.positionOf(UserEventSchemas.EMAIL);
+    private static final int USERNAME = SCHEMA.positionOf(UserEventSchemas.USERNAME);
+    private static final int USER_ID = SCHEMA.positionOf(UserEventSchemas.USER_ID);
+    private static final int EVENT_ID = SCHEMA.positionOf(UserEventSchemas.EVENT_ID);
+
+    private UserEventRecords() {
+    }
+
+    static Schema schema() {
+        return SCHEMA;
+    }
+
+    static GenericRecord toRecord(UserKafkaEvent event, Schema writerSchema) {
+        return new GenericRecord(writerSchema)
+                .put(EVENT_TYPE, event.getEventType())
+                .put(EMAIL, event.getEmail())
+                .put(USERNAME, event.getUsername())
+                .put(USER_ID, event.getUserId())
+                .put(EVENT_ID, event.getEventId());
+    }
+
+    static UserKafkaEvent fromRecord(GenericRecord record) {
+        return new UserKafkaEvent(
+                (String) record.get(EVENT_TYPE),
+                (String) record.get(EMAIL),
+                (String) record.get(USERNAME),
+                (Long) record.get(USER_ID),
+                (String) record.get(EVENT_ID));
+    }
+}
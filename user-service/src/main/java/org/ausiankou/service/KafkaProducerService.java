@@ -1,38 +1,145 @@
 package org.ausiankou.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.exception.KafkaBackpressureException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная отправка событий пользователей в Kafka.
+ * <p>
+ * Каждый метод возвращает {@link CompletableFuture}, который завершается после
+ * подтверждения брокера или с ошибкой доставки. Число неподтвержденных записей
+ * ограничено окном {@code app.kafka.producer.max-in-flight}: когда брокер не успевает,
+ * отправитель ждет свободного места до {@code in-flight-timeout-ms}, а затем получает
+ * future с {@link KafkaBackpressureException}.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KafkaProducerService {
+    static final String TOPIC = "user-events";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore inFlight;
+    private final long inFlightTimeoutMs;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter rejectedCounter;
 
-    private static final String TOPIC = "user-events";
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.kafka.producer.max-in-flight:1000}") int maxInFlight,
+                                @Value("${app.kafka.producer.in-flight-timeout-ms:5000}") long inFlightTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.inFlightTimeoutMs = inFlightTimeoutMs;
+        this.successTimer = sendTimer("success");
+        this.failureTimer = sendTimer("failure");
+        this.rejectedCounter = meterRegistry.counter("user.kafka.send.rejected", "topic", TOPIC);
+        meterRegistry.gauge("user.kafka.send.in_flight", inFlight, s -> maxInFlight - s.availablePermits());
+    }
 
-    public void sendUserCreatedEvent(Long userId, String email, String username){
+    public CompletableFuture<SendResult<String, Object>> sendUserCreatedEvent(Long userId, String email, String username){
         UserKafkaEvent event = new UserKafkaEvent("USER_CREATED", email, username, userId);
-        sendEvent(event);
-        log.info("Отправлено событие USER_CREATED для пользователя: {}", email);
+        log.info("Отправка события USER_CREATED для пользователя: {}", email);
+        return sendEvent(event);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> sendUserDeletedEvent(Long userId, String email, String username){
+        UserKafkaEvent event = new UserKafkaEvent("USER_DELETED", email, username, userId);
+        log.info("Отправка события USER_DELETED для пользователя: {}", email);
+        return sendEvent(event);
     }
-    public void sendUserDeletedEvent(Long userId, String email, String username){
-        UserKafkaEvent event = new UserKafkaEvent("USER_DELETE", email, username, userId);
-        sendEvent(event);
-        log.info("Отправлено событие USER_DELETED для пользователя: {}", email);
+
+    public CompletableFuture<SendResult<String, Object>> sendUserCacheEvictEvent(Long userId){
+        UserKafkaEvent event = UserKafkaEvent.builder()
+                .eventType(UserKafkaEvent.USER_CACHE_EVICT)
+                .userId(userId)
+                .build();
+        log.debug("Отправка события USER_CACHE_EVICT для пользователя ID: {}", userId);
+        return sendEvent(event);
+    }
+
+    /**
+     * Ключ записи — {@code userId}: все события пользователя попадают в одну партицию
+     * и читаются в порядке отправки.
+     */
+    public CompletableFuture<SendResult<String, Object>> sendEvent(UserKafkaEvent event){
+        return send(keyOf(event), event);
     }
 
-    public void sendEvent(UserKafkaEvent event){
-        try{
-            kafkaTemplate.send(TOPIC, event);
-            log.info("Событие отправлено в Kafka. Тип: {}, Пользователь: {}",
-                    event.getEventType(), event.getEmail());
-        }catch (Exception ex){
+    public CompletableFuture<SendResult<String, Object>> send(String key, UserKafkaEvent event){
+        if (event.getEventId() == null) {
+            event.setEventId(UUID.randomUUID().toString());
+        }
+        if (!acquirePermit()) {
+            rejectedCounter.increment();
+            log.warn("Окно отправки в Kafka заполнено, событие {} отклонено", event.getEventType());
+            return CompletableFuture.failedFuture(new KafkaBackpressureException(
+                    "Kafka in-flight window is full for " + inFlightTimeoutMs + " ms"));
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(TOPIC, key, event);
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            sample.stop(failureTimer);
             log.error("Ошибка при отправке события в Kafka: {}", ex.getMessage());
-            throw new RuntimeException("Failed to send event to Kafka", ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+        return future.whenComplete((result, ex) -> {
+            inFlight.release();
+            if (ex == null) {
+                sample.stop(successTimer);
+                log.debug("Событие доставлено в Kafka. Тип: {}, партиция: {}, offset: {}",
+                        event.getEventType(), result.getRecordMetadata().partition(),
+                        result.getRecordMetadata().offset());
+            } else {
+                sample.stop(failureTimer);
+                log.error("Событие {} для пользователя {} не доставлено в Kafka: {}",
+                        event.getEventType(), event.getUserId(), ex.getMessage());
+            }
+        });
+    }
+
+    static String keyOf(UserKafkaEvent event) {
+        return event.getUserId() == null ? null : String.valueOf(event.getUserId());
+    }
+
+    /** Выталкивает накопленные записи, не дожидаясь linger.ms. */
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return inFlight.tryAcquire(inFlightTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
+
+    private Timer sendTimer(String result) {
+        return Timer.builder("user.kafka.send")
+                .description("Время от отправки события до подтверждения брокера")
+                .tag("topic", TOPIC)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 }
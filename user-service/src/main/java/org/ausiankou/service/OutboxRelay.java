@@ -0,0 +1,107 @@
+package org.ausiankou.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.model.OutboxEvent;
+import org.ausiankou.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ретранслятор outbox-таблицы в Kafka.
+ * <p>
+ * События разбиты на шарды по {@code userId}. За один проход по шарду берется
+ * advisory-блокировка и до {@code batch-size} строк через {@code FOR UPDATE SKIP LOCKED},
+ * записи отправляются без ожидания друг друга (их склеивает linger продюсера),
+ * после подтверждения всех записей строки удаляются в той же транзакции.
+ * При ошибке транзакция откатывается и пакет уходит повторно: доставка «хотя бы один раз»,
+ * порядок событий одного пользователя сохраняется.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private static final long SHARD_LOCK_BASE = 0x5553_4552_0000L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.shards:4}")
+    private int shards;
+
+    @Value("${app.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:100}")
+    public void relay() {
+        for (int shard = 0; shard < shards; shard++) {
+            int current = shard;
+            try {
+                Integer sent;
+                do {
+                    sent = transactionTemplate.execute(status -> relayShard(current));
+                } while (sent != null && sent == batchSize);
+            } catch (RuntimeException ex) {
+                log.error("Ошибка ретрансляции outbox, шард {}: {}", shard, ex.getMessage());
+            }
+        }
+    }
+
+    int relayShard(int shard) {
+        if (!outboxEventRepository.tryLockShard(SHARD_LOCK_BASE + shard)) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.lockBatch(shards, shard, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            acks[i] = kafkaProducerService.sendEvent(fromJson(outboxEvent));
+        }
+        kafkaProducerService.flush();
+        awaitAcks(acks);
+
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+        log.debug("Из outbox опубликовано {} событий, шард {}", batch.size(), shard);
+        return batch.size();
+    }
+
+    private void awaitAcks(CompletableFuture<?>[] acks) {
+        try {
+            CompletableFuture.allOf(acks).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Kafka acks", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish outbox batch to Kafka", e);
+        }
+    }
+
+    private UserKafkaEvent fromJson(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), UserKafkaEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted outbox event " + outboxEvent.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.ausiankou.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ausiankou.config.CacheConfig;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сбрасывает пользователя из локального кэша по событию USER_CACHE_EVICT от любой реплики.
+ * У каждой реплики своя consumer group, поэтому событие получают все.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCacheEvictionListener {
+
+    private final CacheManager cacheManager;
+
+    @KafkaListener(topics = "user-events", containerFactory = "cacheEvictionListenerContainerFactory")
+    public void onUserEvent(UserKafkaEvent event) {
+        if (event == null || event.getUserId() == null
+                || !UserKafkaEvent.USER_CACHE_EVICT.equals(event.getEventType())) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(event.getUserId());
+            log.debug("Пользователь ID {} удален из локального кэша", event.getUserId());
+        }
+    }
+}
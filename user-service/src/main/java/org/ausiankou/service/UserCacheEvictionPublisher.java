@@ -0,0 +1,31 @@
+package org.ausiankou.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ausiankou.dto.events.UserDeletedEvent;
+import org.ausiankou.dto.events.UserUpdatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Рассылает другим репликам команду сбросить пользователя из кэша.
+ * Отправка идет после коммита, чтобы реплика не успела перечитать из БД старую версию.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCacheEvictionPublisher {
+
+    private final KafkaProducerService kafkaProducerService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        kafkaProducerService.sendUserCacheEvictEvent(event.getUserId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserDeleted(UserDeletedEvent event) {
+        kafkaProducerService.sendUserCacheEvictEvent(event.getUserId());
+    }
+}
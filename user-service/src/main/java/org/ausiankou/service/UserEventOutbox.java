@@ -0,0 +1,52 @@
+package org.ausiankou.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.model.OutboxEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запись событий пользователя в outbox-таблицу. Вызывается только внутри транзакции
+ * бизнес-операции: при откате событие исчезает вместе с изменением.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserEventOutbox {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(UserKafkaEvent event) {
+        if (event.getEventId() == null) {
+            // Идентификатор попадает в payload: повторная публикация строки outbox несет тот же eventId
+            event.setEventId(UUID.randomUUID().toString());
+        }
+        entityManager.persist(OutboxEvent.builder()
+                .aggregateId(event.getUserId())
+                .eventType(event.getEventType())
+                .payload(toJson(event))
+                .build());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<UserKafkaEvent> events) {
+        events.forEach(this::append);
+    }
+
+    private String toJson(UserKafkaEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize event " + event.getEventType(), e);
+        }
+    }
+}
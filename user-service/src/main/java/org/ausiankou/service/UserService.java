@@ -1,17 +1,23 @@
 package org.ausiankou.service;
 
+import org.ausiankou.dto.BulkItemResultDto;
+import org.ausiankou.dto.UserBulkUpdateDto;
 import org.ausiankou.dto.UserRequestDto;
 import org.ausiankou.dto.UserResponseDto;
-import org.springframework.data.domain.Page;
-
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     UserResponseDto createUser(UserRequestDto userRequest);
     UserResponseDto getUserById(Long id);
-    List<UserResponseDto> getAllUsers();
+    Slice<UserResponseDto> getUsers(Long afterId, int size);
+    List<UserResponseDto> getUsersByIds(List<Long> ids);
+    void exportUsers(Consumer<UserResponseDto> consumer);
     UserResponseDto updateUser(Long id, UserRequestDto userRequest);
     void deleteUser(Long id);
-}
\ No newline at end of file
+    List<BulkItemResultDto> createUsers(List<UserRequestDto> userRequests);
+    List<BulkItemResultDto> updateUsers(List<UserBulkUpdateDto> userUpdates);
+    List<BulkItemResultDto> deleteUsers(List<Long> ids);
+}
@@ -1,23 +1,46 @@
 package org.ausiankou.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.ausiankou.config.CacheConfig;
 import org.ausiankou.dto.events.UserCreatedEvent;
 import org.ausiankou.dto.events.UserDeletedEvent;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.dto.events.UserUpdatedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.ausiankou.dto.BulkItemResultDto;
+import org.ausiankou.dto.UserBulkUpdateDto;
 import org.ausiankou.dto.UserMapper;
 import org.ausiankou.dto.UserRequestDto;
 import org.ausiankou.dto.UserResponseDto;
 import org.ausiankou.exception.UserServiceException;
 import org.ausiankou.model.User;
 import org.ausiankou.repository.UserRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +48,16 @@ import java.util.stream.Collectors;
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    /** Размер JDBC-пакета и IN-списков в пакетных операциях, равен hibernate.jdbc.batch_size. */
+    static final int BULK_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final KafkaProducerService kafkaProducerService;
+    private final UserEventOutbox userEventOutbox;
     private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional
@@ -40,10 +69,8 @@ public class UserServiceImpl implements UserService {
         User user = userMapper.toEntity(userRequest);
         User savedUser = userRepository.save(user);
 
-        kafkaProducerService.sendUserCreatedEvent(
-                savedUser.getId(),
-                savedUser.getEmail(),
-                savedUser.getName()
+        userEventOutbox.append(
+                new UserKafkaEvent("USER_CREATED", savedUser.getEmail(), savedUser.getName(), savedUser.getId())
         );
 
         eventPublisher.publishEvent(
@@ -55,6 +82,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
+    // sync: чтение из БД идет внутри загрузки ключа, и сброс ключа после коммита ждет ее завершения
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id", sync = true)
     public UserResponseDto getUserById(Long id) {
         log.info("Fetching user by ID: {}", id);
 
@@ -66,16 +95,54 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponseDto> getAllUsers() {
-        log.info("Getting all users");
+    public Slice<UserResponseDto> getUsers(Long afterId, int size) {
+        log.info("Getting users after ID: {}, size: {}", afterId, size);
 
-        return userRepository.findAll().stream()
-                .map(userMapper::toResponseDto)
-                .collect(Collectors.toList());
+        return userRepository.findByIdGreaterThanOrderByIdAsc(
+                        afterId == null ? 0L : afterId, PageRequest.of(0, Math.max(size, 1)))
+                .map(userMapper::toResponseDto);
+    }
+
+    /**
+     * Пользователи по списку id одним запросом {@code findAllById} на каждые
+     * {@link #BULK_CHUNK_SIZE} id. Порядок — как в запросе, повторы и null
+     * отбрасываются, несуществующие id пропускаются.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserResponseDto> getUsersByIds(List<Long> ids) {
+        log.info("Getting {} users by ID", ids.size());
+
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        Map<Long, User> users = findUsersById(uniqueIds);
+        List<UserResponseDto> result = new ArrayList<>(users.size());
+        for (Long id : uniqueIds) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(userMapper.toResponseDto(user));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserResponseDto> consumer) {
+        log.info("Exporting all users");
+
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            users.forEach(user -> {
+                consumer.accept(userMapper.toResponseDto(user));
+                // Иначе контекст персистентности удерживает каждую прочитанную строку
+                entityManager.detach(user);
+            });
+        }
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public UserResponseDto updateUser(Long id, UserRequestDto userRequest) {
         log.info("Updating user ID: {}", id);
 
@@ -93,11 +160,16 @@ public class UserServiceImpl implements UserService {
 
         User updatedUser = userRepository.save(user);
 
+        eventPublisher.publishEvent(
+                new UserUpdatedEvent(this, updatedUser.getId(), updatedUser.getEmail(), updatedUser.getName())
+        );
+
         return userMapper.toResponseDto(updatedUser);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserServiceException("Пользователь не найден"));
@@ -108,7 +180,7 @@ public class UserServiceImpl implements UserService {
 
         userRepository.deleteById(id);
 
-        kafkaProducerService.sendUserDeletedEvent(userId, email, username);
+        userEventOutbox.append(new UserKafkaEvent("USER_DELETED", email, username, userId));
 
         eventPublisher.publishEvent(
                 new UserDeletedEvent(this, userId, email, username)
@@ -116,4 +188,206 @@ public class UserServiceImpl implements UserService {
 
         log.info("Пользователь удален: ID={}, Email={}", userId, email);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public List<BulkItemResultDto> createUsers(List<UserRequestDto> userRequests) {
+        log.info("Bulk creating {} users", userRequests.size());
+
+        BulkItemResultDto[] results = new BulkItemResultDto[userRequests.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < userRequests.size(); i++) {
+            String violation = validate(userRequests.get(i));
+            if (violation != null) {
+                results[i] = BulkItemResultDto.failed(i, null, BulkItemResultDto.Status.INVALID, violation);
+            } else if (candidates.putIfAbsent(userRequests.get(i).getEmail(), i) != null) {
+                results[i] = BulkItemResultDto.failed(i, null, BulkItemResultDto.Status.CONFLICT,
+                        "Email повторяется в запросе");
+            }
+        }
+
+        Set<String> existingEmails = findExistingEmails(candidates.keySet());
+        List<UserKafkaEvent> events = new ArrayList<>();
+        int pending = 0;
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            int index = candidate.getValue();
+            if (existingEmails.contains(candidate.getKey())) {
+                results[index] = BulkItemResultDto.failed(index, null, BulkItemResultDto.Status.CONFLICT,
+                        "Email уже существует");
+                continue;
+            }
+            User user = userMapper.toEntity(userRequests.get(index));
+            entityManager.persist(user);
+            results[index] = BulkItemResultDto.of(index, user.getId(), BulkItemResultDto.Status.CREATED);
+            events.add(new UserKafkaEvent("USER_CREATED", user.getEmail(), user.getName(), user.getId()));
+            if (++pending == BULK_CHUNK_SIZE) {
+                flushAndClear();
+                pending = 0;
+            }
+        }
+        flushAndClear();
+
+        userEventOutbox.appendAll(events);
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional
+    public List<BulkItemResultDto> updateUsers(List<UserBulkUpdateDto> userUpdates) {
+        log.info("Bulk updating {} users", userUpdates.size());
+
+        BulkItemResultDto[] results = new BulkItemResultDto[userUpdates.size()];
+        Map<Long, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < userUpdates.size(); i++) {
+            String violation = validate(userUpdates.get(i));
+            if (violation != null) {
+                results[i] = BulkItemResultDto.failed(i, null, BulkItemResultDto.Status.INVALID, violation);
+            } else if (candidates.putIfAbsent(userUpdates.get(i).getId(), i) != null) {
+                results[i] = BulkItemResultDto.failed(i, userUpdates.get(i).getId(),
+                        BulkItemResultDto.Status.CONFLICT, "Пользователь повторяется в запросе");
+            }
+        }
+
+        Map<Long, User> users = findUsersById(candidates.keySet());
+        Set<String> changedEmails = new HashSet<>();
+        for (Map.Entry<Long, Integer> candidate : candidates.entrySet()) {
+            User user = users.get(candidate.getKey());
+            String email = userUpdates.get(candidate.getValue()).getEmail();
+            if (user != null && !user.getEmail().equals(email)) {
+                changedEmails.add(email);
+            }
+        }
+        Set<String> existingEmails = findExistingEmails(changedEmails);
+
+        Set<String> claimedEmails = new HashSet<>();
+        for (Map.Entry<Long, Integer> candidate : candidates.entrySet()) {
+            int index = candidate.getValue();
+            UserBulkUpdateDto update = userUpdates.get(index);
+            User user = users.get(candidate.getKey());
+            if (user == null) {
+                results[index] = BulkItemResultDto.failed(index, update.getId(), BulkItemResultDto.Status.NOT_FOUND,
+                        "Пользователь не найден");
+                continue;
+            }
+            if (!user.getEmail().equals(update.getEmail())
+                    && (existingEmails.contains(update.getEmail()) || !claimedEmails.add(update.getEmail()))) {
+                results[index] = BulkItemResultDto.failed(index, update.getId(), BulkItemResultDto.Status.CONFLICT,
+                        "Email уже существует");
+                continue;
+            }
+            user.setName(update.getName());
+            user.setEmail(update.getEmail());
+            user.setAge(update.getAge());
+            results[index] = BulkItemResultDto.of(index, user.getId(), BulkItemResultDto.Status.UPDATED);
+            evictCached(user.getId());
+
+            eventPublisher.publishEvent(new UserUpdatedEvent(this, user.getId(), user.getEmail(), user.getName()));
+        }
+        // UPDATE уходят пакетами при flush благодаря hibernate.order_updates
+        flushAndClear();
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional
+    public List<BulkItemResultDto> deleteUsers(List<Long> ids) {
+        log.info("Bulk deleting {} users", ids.size());
+
+        BulkItemResultDto[] results = new BulkItemResultDto[ids.size()];
+        Map<Long, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = BulkItemResultDto.failed(i, null, BulkItemResultDto.Status.INVALID, "Id is required");
+            } else if (candidates.putIfAbsent(ids.get(i), i) != null) {
+                results[i] = BulkItemResultDto.failed(i, ids.get(i), BulkItemResultDto.Status.CONFLICT,
+                        "Пользователь повторяется в запросе");
+            }
+        }
+
+        Map<Long, User> users = findUsersById(candidates.keySet());
+        List<Long> deletedIds = new ArrayList<>();
+        List<UserKafkaEvent> events = new ArrayList<>();
+        for (Map.Entry<Long, Integer> candidate : candidates.entrySet()) {
+            int index = candidate.getValue();
+            User user = users.get(candidate.getKey());
+            if (user == null) {
+                results[index] = BulkItemResultDto.failed(index, candidate.getKey(),
+                        BulkItemResultDto.Status.NOT_FOUND, "Пользователь не найден");
+                continue;
+            }
+            deletedIds.add(user.getId());
+            results[index] = BulkItemResultDto.of(index, user.getId(), BulkItemResultDto.Status.DELETED);
+            evictCached(user.getId());
+            events.add(new UserKafkaEvent("USER_DELETED", user.getEmail(), user.getName(), user.getId()));
+
+            eventPublisher.publishEvent(new UserDeletedEvent(this, user.getId(), user.getEmail(), user.getName()));
+        }
+        entityManager.clear();
+        for (int from = 0; from < deletedIds.size(); from += BULK_CHUNK_SIZE) {
+            userRepository.deleteAllByIdInBatch(
+                    deletedIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, deletedIds.size())));
+        }
+
+        userEventOutbox.appendAll(events);
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Сбрасывает пользователя из кэша после коммита. Сброс по ключу, а не всего
+     * кэша: очистка целиком не ждет идущих загрузок и не защищает от их устаревших данных.
+     */
+    private void evictCached(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    private String validate(Object dto) {
+        if (dto == null) {
+            return "Пустой элемент запроса";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Проверка email одним запросом {@code in (...)} на каждые {@link #BULK_CHUNK_SIZE} адресов
+     * вместо existsByEmail на каждого пользователя.
+     */
+    private Set<String> findExistingEmails(Collection<String> emails) {
+        List<String> list = new ArrayList<>(emails);
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < list.size(); from += BULK_CHUNK_SIZE) {
+            existing.addAll(userRepository.findExistingEmails(
+                    list.subList(from, Math.min(from + BULK_CHUNK_SIZE, list.size()))));
+        }
+        return existing;
+    }
+
+    private Map<Long, User> findUsersById(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        Map<Long, User> users = new HashMap<>();
+        for (int from = 0; from < list.size(); from += BULK_CHUNK_SIZE) {
+            for (User user : userRepository.findAllById(
+                    list.subList(from, Math.min(from + BULK_CHUNK_SIZE, list.size())))) {
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
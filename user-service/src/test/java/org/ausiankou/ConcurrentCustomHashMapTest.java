@@ -0,0 +1,134 @@
+package org.ausiankou;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentCustomHashMapTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    @DisplayName("Базовые операции в одном потоке")
+    void singleThreadOperations() {
+        // Given
+        ConcurrentCustomHashMap<Long, String> map = new ConcurrentCustomHashMap<>();
+
+        // When
+        map.put(1L, "One");
+        String previous = map.putIfAbsent(1L, "Uno");
+        map.put(2L, "Two");
+        String removed = map.remove(2L);
+
+        // Then
+        assertThat(previous).isEqualTo("One");
+        assertThat(removed).isEqualTo("Two");
+        assertThat(map.get(1L)).isEqualTo("One");
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.size()).isEqualTo(1);
+        assertThatThrownBy(() -> map.put(null, "x")).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    @DisplayName("Параллельные вставки во время ресайза не теряются")
+    void concurrentPutsSurviveResize() throws Exception {
+        // Given
+        ConcurrentCustomHashMap<Integer, Integer> map = new ConcurrentCustomHashMap<>(2);
+        int perThread = 50_000;
+
+        // When
+        runConcurrently(t -> {
+            for (int i = 0; i < perThread; i++) {
+                int key = t * perThread + i;
+                map.put(key, key);
+                assertThat(map.get(key)).isEqualTo(key);
+            }
+        });
+
+        // Then
+        assertThat(map.size()).isEqualTo(THREADS * perThread);
+        for (int key = 0; key < THREADS * perThread; key++) {
+            assertThat(map.get(key)).isEqualTo(key);
+        }
+    }
+
+    @Test
+    @DisplayName("merge атомарно накапливает значения")
+    void mergeIsAtomic() throws Exception {
+        // Given
+        ConcurrentCustomHashMap<Integer, Integer> map = new ConcurrentCustomHashMap<>();
+
+        // When
+        runConcurrently(t -> {
+            for (int i = 0; i < 10_000; i++) {
+                map.merge(i % 100, 1, Integer::sum);
+            }
+        });
+
+        // Then
+        for (int key = 0; key < 100; key++) {
+            assertThat(map.get(key)).isEqualTo(THREADS * 100);
+        }
+    }
+
+    @Test
+    @DisplayName("computeIfAbsent вызывает функцию один раз на ключ")
+    void computeIfAbsentRunsOnce() throws Exception {
+        // Given
+        ConcurrentCustomHashMap<Integer, String> map = new ConcurrentCustomHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        runConcurrently(t -> {
+            for (int i = 0; i < 5_000; i++) {
+                map.computeIfAbsent(i, k -> {
+                    calls.incrementAndGet();
+                    return "v" + k;
+                });
+            }
+        });
+
+        // Then
+        assertThat(calls.get()).isEqualTo(5_000);
+        assertThat(map.size()).isEqualTo(5_000);
+        assertThat(map.get(4_999)).isEqualTo("v4999");
+    }
+
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
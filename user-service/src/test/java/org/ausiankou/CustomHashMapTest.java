@@ -0,0 +1,225 @@
+package org.ausiankou;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomHashMapTest {
+
+    @Test
+    @DisplayName("put/get/remove и ключ null")
+    void putGetRemove() {
+        // Given
+        CustomHashMap<Integer, String> map = new CustomHashMap<>();
+
+        // When
+        map.put(null, "Nothing");
+        map.put(1, "One");
+        map.put(1, "ETC");
+        map.put(2, "Two");
+        map.remove(2);
+
+        // Then
+        assertThat(map.get(null)).isEqualTo("Nothing");
+        assertThat(map.get(1)).isEqualTo("ETC");
+        assertThat(map.get(2)).isNull();
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Таблица растет по мере заполнения и не теряет элементы")
+    void resizeKeepsAllEntries() {
+        // Given
+        CustomHashMap<Integer, Integer> map = new CustomHashMap<>(1);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i, i * 2);
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(map.get(i)).isEqualTo(i * 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Коллизии Comparable-ключей превращают цепочку в дерево")
+    void collidingComparableKeys() {
+        assertMatchesHashMap(CollidingComparableKey::new, 5_000, 64);
+    }
+
+    @Test
+    @DisplayName("Коллизии не-Comparable ключей тоже обрабатываются деревом")
+    void collidingNonComparableKeys() {
+        assertMatchesHashMap(CollidingKey::new, 2_000, 64);
+    }
+
+    @Test
+    @DisplayName("Случайные операции совпадают с java.util.HashMap")
+    void randomOperationsMatchHashMap() {
+        assertMatchesHashMap(CollidingComparableKey::new, 20_000, 1);
+    }
+
+    @Test
+    @DisplayName("Некорректные параметры конструктора")
+    void invalidArguments() {
+        assertThatThrownBy(() -> new CustomHashMap<>(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CustomHashMap<>(16, 0f)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Обход, forEach и равенство с java.util.HashMap")
+    void iterationMatchesMapContract() {
+        // Given
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            expected.put(i, "Value" + i);
+        }
+
+        // When
+        CustomHashMap<Integer, String> map = new CustomHashMap<>(expected);
+        Map<Integer, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+
+        // Then
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(visited).isEqualTo(expected);
+        assertThat(map.keySet()).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        assertThat(map.values()).hasSize(1_000);
+    }
+
+    @Test
+    @DisplayName("Удаление через итератор, в том числе из ячейки-дерева")
+    void iteratorRemove() {
+        // Given
+        CustomHashMap<CollidingComparableKey, Integer> map = new CustomHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            map.put(new CollidingComparableKey(i * 64), i);
+            map.put(new CollidingComparableKey(i * 64 + 1), i);
+        }
+
+        // When
+        Iterator<Map.Entry<CollidingComparableKey, Integer>> it = map.entrySet().iterator();
+        int seen = 0;
+        while (it.hasNext()) {
+            Map.Entry<CollidingComparableKey, Integer> entry = it.next();
+            seen++;
+            if (entry.getKey().id % 64 == 0) {
+                it.remove();
+            }
+        }
+
+        // Then
+        assertThat(seen).isEqualTo(400);
+        assertThat(map).hasSize(200);
+        assertThat(map.keySet()).allMatch(key -> key.id % 64 == 1);
+        assertThatThrownBy(() -> {
+            for (CollidingComparableKey key : map.keySet()) {
+                map.remove(key);
+            }
+        }).isInstanceOf(ConcurrentModificationException.class);
+    }
+
+    @Test
+    @DisplayName("putAll заранее расширяет таблицу")
+    void putAllPresizes() {
+        // Given
+        Map<Long, Long> source = new HashMap<>();
+        for (long id = 0; id < 10_000; id++) {
+            source.put(id, id);
+        }
+        CustomHashMap<Long, Long> map = new CustomHashMap<>();
+        map.put(-1L, -1L);
+
+        // When
+        map.putAll(source);
+        map.ensureCapacity(100);
+
+        // Then
+        assertThat(map).hasSize(10_001);
+        assertThat(map.get(9_999L)).isEqualTo(9_999L);
+        assertThat(map.get(-1L)).isEqualTo(-1L);
+    }
+
+    private static <K> void assertMatchesHashMap(IntFunction<K> keyFactory, int keys, int step) {
+        CustomHashMap<K, Integer> map = new CustomHashMap<>();
+        Map<K, Integer> expected = new HashMap<>();
+        Object[] pool = new Object[keys];
+        for (int i = 0; i < keys; i++) {
+            pool[i] = keyFactory.apply(i * step);
+        }
+        Random random = new Random(42);
+
+        for (int op = 0; op < keys * 10; op++) {
+            @SuppressWarnings("unchecked")
+            K key = (K) pool[random.nextInt(keys)];
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, op);
+                expected.put(key, op);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (Object key : pool) {
+            @SuppressWarnings("unchecked")
+            K k = (K) key;
+            assertThat(map.get(k)).isEqualTo(expected.get(k));
+        }
+    }
+
+    private static class CollidingKey {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 64 == 0 ? 7 : id;
+        }
+    }
+
+    private static final class CollidingComparableKey implements Comparable<CollidingComparableKey> {
+        final int id;
+
+        CollidingComparableKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CollidingComparableKey o) {
+            return Integer.compare(id, o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingComparableKey other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 64 == 0 ? 7 : id;
+        }
+    }
+}
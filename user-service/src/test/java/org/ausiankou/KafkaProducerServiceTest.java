@@ -1,18 +1,30 @@
 package org.ausiankou;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.exception.KafkaBackpressureException;
 import org.ausiankou.service.KafkaProducerService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 
@@ -22,12 +34,23 @@ class KafkaProducerServiceTest {
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private KafkaProducerService kafkaProducerService;
 
+    private CompletableFuture<SendResult<String, Object>> pendingSend;
+
     @Captor
     private ArgumentCaptor<UserKafkaEvent> eventCaptor;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        kafkaProducerService = new KafkaProducerService(kafkaTemplate, meterRegistry, 1, 10);
+        pendingSend = new CompletableFuture<>();
+        lenient().when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(pendingSend);
+    }
+
     @Test
     void sendUserCreatedEvent_shouldSendCorrectEvent() {
         // Given
@@ -39,7 +62,7 @@ class KafkaProducerServiceTest {
         kafkaProducerService.sendUserCreatedEvent(userId, email, username);
 
         // Then
-        verify(kafkaTemplate).send(eq("user-events"), eventCaptor.capture());
+        verify(kafkaTemplate).send(eq("user-events"), eq("1"), eventCaptor.capture());
 
         UserKafkaEvent capturedEvent = eventCaptor.getValue();
         assertEquals("USER_CREATED", capturedEvent.getEventType());
@@ -59,7 +82,7 @@ class KafkaProducerServiceTest {
         kafkaProducerService.sendUserDeletedEvent(userId, email, username);
 
         // Then
-        verify(kafkaTemplate).send(eq("user-events"), eventCaptor.capture());
+        verify(kafkaTemplate).send(eq("user-events"), eq("2"), eventCaptor.capture());
 
         UserKafkaEvent capturedEvent = eventCaptor.getValue();
         assertEquals("USER_DELETED", capturedEvent.getEventType());
@@ -67,4 +90,28 @@ class KafkaProducerServiceTest {
         assertEquals(username, capturedEvent.getUsername());
         assertEquals(userId, capturedEvent.getUserId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void send_shouldApplyBackpressureWhenWindowIsFull() {
+        // Given
+        UserKafkaEvent event = new UserKafkaEvent("USER_CREATED", "a@b.c", "A", 1L);
+        CompletableFuture<SendResult<String, Object>> first = kafkaProducerService.sendEvent(event);
+
+        // When
+        CompletableFuture<SendResult<String, Object>> rejected = kafkaProducerService.sendEvent(event);
+        pendingSend.completeExceptionally(new IllegalStateException("broker down"));
+        kafkaProducerService.sendEvent(event);
+
+        // Then
+        assertThat(first).isCompletedExceptionally();
+        assertThat(rejected).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(KafkaBackpressureException.class);
+        // Отклоненная запись не дошла до KafkaTemplate, после освобождения окна отправка снова идет
+        verify(kafkaTemplate, times(2)).send(eq("user-events"), eq("1"), any());
+        assertThat(meterRegistry.counter("user.kafka.send.rejected", "topic", "user-events").count()).isEqualTo(1);
+        // Обе записи, дошедшие до брокера, завершились ошибкой
+        assertThat(meterRegistry.timer("user.kafka.send", "topic", "user-events", "result", "failure").count())
+                .isEqualTo(2);
+    }
+}
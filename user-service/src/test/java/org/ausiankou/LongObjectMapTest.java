@@ -0,0 +1,64 @@
+package org.ausiankou;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongObjectMapTest {
+
+    @Test
+    @DisplayName("put/get/remove, включая ключи 0 и отрицательные")
+    void putGetRemove() {
+        // Given
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        // When
+        map.put(0L, "Zero");
+        map.put(-1L, "Minus");
+        map.put(Long.MAX_VALUE, "Max");
+        map.put(0L, "Zero again");
+        String removed = map.remove(-1L);
+
+        // Then
+        assertThat(removed).isEqualTo("Minus");
+        assertThat(map.get(0L)).isEqualTo("Zero again");
+        assertThat(map.get(-1L)).isNull();
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo("Max");
+        assertThat(map.size()).isEqualTo(2);
+        assertThatThrownBy(() -> map.put(1L, null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    @DisplayName("Случайные операции совпадают с java.util.HashMap")
+    void randomOperationsMatchHashMap() {
+        // Given
+        LongObjectMap<Integer> map = new LongObjectMap<>(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // When
+        for (int op = 0; op < 200_000; op++) {
+            // Ключи с общим младшим хвостом проверяют кластеризацию при линейном пробировании
+            long key = (long) random.nextInt(5_000) << 20;
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                map.put(key, op);
+                expected.put(key, op);
+            }
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int i = 0; i < 5_000; i++) {
+            long key = (long) i << 20;
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.ausiankou;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedLongHashMapTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Данные переживают закрытие и повторное открытие файла")
+    void survivesReopen() {
+        // Given
+        Path file = dir.resolve("users.map");
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 1024)) {
+            for (long id = 1; id <= 500; id++) {
+                map.put(id, bytes("user-" + id));
+            }
+            map.put(7L, bytes("updated"));
+            map.remove(8L);
+        }
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 16)) {
+
+            // Then
+            assertThat(map.size()).isEqualTo(499);
+            assertThat(map.get(1L)).isEqualTo(bytes("user-1"));
+            assertThat(map.get(7L)).isEqualTo(bytes("updated"));
+            assertThat(map.get(8L)).isNull();
+            assertThat(map.get(500L)).isEqualTo(bytes("user-500"));
+        }
+    }
+
+    @Test
+    @DisplayName("После сбоя остаются только зафиксированные через commit изменения")
+    void recoversCommittedStateAfterCrash() {
+        // Given
+        Path file = dir.resolve("crash.map");
+        MappedLongHashMap crashed = MappedLongHashMap.open(file, 64);
+        crashed.put(1L, bytes("committed"));
+        crashed.commit();
+        crashed.put(2L, bytes("lost"));
+        // close() не вызывается — имитация падения процесса
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 64)) {
+
+            // Then
+            assertThat(map.get(1L)).isEqualTo(bytes("committed"));
+            assertThat(map.get(2L)).isNull();
+            assertThat(map.size()).isEqualTo(1);
+
+            map.put(3L, bytes("after recovery"));
+            assertThat(map.get(3L)).isEqualTo(bytes("after recovery"));
+        }
+    }
+
+    @Test
+    @DisplayName("Перезапись зафиксированного ключа без commit откатывается после сбоя")
+    void restoresOverwrittenValueAfterCrash() {
+        // Given
+        Path file = dir.resolve("overwrite.map");
+        MappedLongHashMap crashed = MappedLongHashMap.open(file, 64);
+        crashed.put(1L, bytes("committed"));
+        crashed.commit();
+        crashed.put(1L, bytes("new"));
+        // close() не вызывается — имитация падения процесса
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 64)) {
+
+            // Then
+            assertThat(map.get(1L)).isEqualTo(bytes("committed"));
+            assertThat(map.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Удаление зафиксированного ключа без commit откатывается после сбоя, после commit — нет")
+    void restoresRemovedKeyAfterCrash() {
+        // Given
+        Path file = dir.resolve("remove.map");
+        MappedLongHashMap crashed = MappedLongHashMap.open(file, 64);
+        crashed.put(1L, bytes("one"));
+        crashed.put(2L, bytes("two"));
+        crashed.commit();
+        crashed.remove(2L);
+        crashed.commit();
+        crashed.remove(1L);
+        crashed.put(2L, bytes("lost"));
+        // close() не вызывается — имитация падения процесса
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 64)) {
+
+            // Then
+            assertThat(map.get(1L)).isEqualTo(bytes("one"));
+            assertThat(map.get(2L)).isNull();
+            assertThat(map.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Удаленные слоты освобождаются: поток вставок и удалений не переполняет таблицу")
+    void reclaimsDeletedSlotsUnderChurn() {
+        // Given
+        Path file = dir.resolve("churn.map");
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 1024)) {
+            for (long id = 0; id < 10; id++) {
+                map.put(id, bytes("user-" + id));
+            }
+
+            // When: ключи идут скользящим окном из 10 живых
+            for (long id = 10; id < 20_000; id++) {
+                map.put(id, bytes("user-" + id));
+                map.remove(id - 10);
+            }
+
+            // Then
+            assertThat(map.size()).isEqualTo(10);
+            assertThat(map.get(19_999L)).isEqualTo(bytes("user-19999"));
+            assertThat(map.get(19_989L)).isNull();
+        }
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 1024)) {
+
+            // Then
+            assertThat(map.size()).isEqualTo(10);
+            map.put(20_000L, bytes("after reopen"));
+            assertThat(map.get(20_000L)).isEqualTo(bytes("after reopen"));
+        }
+    }
+
+    @Test
+    @DisplayName("Восстановление после сбоя проигрывает долгий поток вставок и удалений")
+    void replaysChurnAfterCrash() {
+        // Given
+        Path file = dir.resolve("churn-crash.map");
+        MappedLongHashMap crashed = MappedLongHashMap.open(file, 64);
+        for (long id = 0; id < 1_000; id++) {
+            crashed.put(id, bytes("user-" + id));
+            if (id >= 10) {
+                crashed.remove(id - 10);
+            }
+        }
+        crashed.commit();
+        // close() не вызывается — имитация падения процесса
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, 64)) {
+
+            // Then
+            assertThat(map.size()).isEqualTo(10);
+            assertThat(map.get(990L)).isEqualTo(bytes("user-990"));
+            assertThat(map.get(989L)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Сжатие оставляет в журнале только живые записи и переживает сбой")
+    void compactKeepsOnlyLiveRecords() {
+        // Given
+        Path file = dir.resolve("compact.map");
+        MappedLongHashMap map = MappedLongHashMap.open(file, 64);
+        for (int round = 0; round < 100; round++) {
+            for (long id = 1; id <= 10; id++) {
+                map.put(id, bytes("v" + round));
+            }
+        }
+        map.remove(10L);
+        long before = map.dataSize();
+
+        // When
+        map.compact();
+
+        // Then
+        assertThat(map.dataSize()).isLessThan(before / 50);
+        assertThat(map.size()).isEqualTo(9);
+        assertThat(map.get(1L)).isEqualTo(bytes("v99"));
+        assertThat(map.get(10L)).isNull();
+        assertThat(dir.resolve("compact.map.compact")).doesNotExist();
+
+        // When: после сжатия таблица работает дальше, затем процесс падает
+        map.put(11L, bytes("uncommitted"));
+        try (MappedLongHashMap reopened = MappedLongHashMap.open(file, 64)) {
+
+            // Then
+            assertThat(reopened.size()).isEqualTo(9);
+            assertThat(reopened.get(9L)).isEqualTo(bytes("v99"));
+            assertThat(reopened.get(11L)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Емкость больше максимальной отклоняется понятной ошибкой, максимальная открывается")
+    void rejectsCapacityAboveMaximum() {
+        // When / Then
+        assertThatThrownBy(() -> MappedLongHashMap.open(dir.resolve("huge.map"),
+                MappedLongHashMap.MAXIMUM_CAPACITY + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds maximum");
+        assertThat(dir.resolve("huge.map")).doesNotExist();
+
+        // Given
+        Path file = dir.resolve("max.map");
+
+        // When
+        try (MappedLongHashMap map = MappedLongHashMap.open(file, MappedLongHashMap.MAXIMUM_CAPACITY)) {
+            map.put(Long.MAX_VALUE, bytes("last"));
+
+            // Then
+            assertThat(map.get(Long.MAX_VALUE)).isEqualTo(bytes("last"));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -9,8 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -28,6 +31,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(UserModelAssembler.class)
 public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -139,14 +143,43 @@ public class UserControllerTest {
 
         List<UserResponseDto> users = Arrays.asList(user1, user2);
 
-        given(userService.getAllUsers()).willReturn(users);
+        given(userService.getUsers(null, 2)).willReturn(new SliceImpl<>(users, PageRequest.of(0, 2), true));
 
         // When Then
-        mockMvc.perform(get("/api/v1/users"))
+        mockMvc.perform(get("/api/v1/users").param("size", "2"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content", hasSize(2)))
-                .andExpect(jsonPath("$.content[0].name", is("John")))
-                .andExpect(jsonPath("$.content[1].name", is("Jane")));
+                .andExpect(jsonPath("$._links.next.href", endsWith("/api/v1/users?after=2&size=2")))
+                .andExpect(jsonPath("$._embedded.userResponseDtoList", hasSize(2)))
+                .andExpect(jsonPath("$._embedded.userResponseDtoList[0].name", is("John")))
+                .andExpect(jsonPath("$._embedded.userResponseDtoList[1].name", is("Jane")));
+    }
+
+    @Test
+    @DisplayName("Возвращает пользователей по списку ID одним вызовом сервиса")
+    void returnUsersByIds() throws Exception {
+        // Given
+        UserResponseDto user1 = UserResponseDto.builder()
+                .id(1L)
+                .name("John")
+                .email("john@test.com")
+                .age(25)
+                .build();
+
+        UserResponseDto user2 = UserResponseDto.builder()
+                .id(2L)
+                .name("Jane")
+                .email("jane@test.com")
+                .age(30)
+                .build();
+
+        given(userService.getUsersByIds(List.of(2L, 1L, 5L))).willReturn(List.of(user2, user1));
+
+        // When Then
+        mockMvc.perform(get("/api/v1/users/batch").param("ids", "2,1,5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseDtoList", hasSize(2)))
+                .andExpect(jsonPath("$._embedded.userResponseDtoList[0].name", is("Jane")))
+                .andExpect(jsonPath("$._embedded.userResponseDtoList[1].name", is("John")));
     }
 
     @Test
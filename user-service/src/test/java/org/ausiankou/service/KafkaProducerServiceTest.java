@@ -1,6 +1,7 @@
 package org.ausiankou.service;
 
 import org.ausiankou.dto.events.UserKafkaEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,7 +9,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.TestPropertySource;
 
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -23,6 +29,11 @@ class KafkaProducerServiceTest {
     @MockBean
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @BeforeEach
+    void setUp() {
+        given(kafkaTemplate.send(anyString(), any(), any())).willReturn(new CompletableFuture<>());
+    }
+
     @Test
     void testSendUserCreatedEvent() {
         // Given
@@ -36,6 +47,7 @@ class KafkaProducerServiceTest {
         // Then
         verify(kafkaTemplate, times(1)).send(
                 eq("user-events"),
+                eq(String.valueOf(userId)),
                 argThat(event -> {
                     UserKafkaEvent kafkaEvent = (UserKafkaEvent) event;
                     return "USER_CREATED".equals(kafkaEvent.getEventType()) &&
@@ -59,6 +71,7 @@ class KafkaProducerServiceTest {
         // Then
         verify(kafkaTemplate, times(1)).send(
                 eq("user-events"),
+                eq(String.valueOf(userId)),
                 argThat(event -> {
                     UserKafkaEvent kafkaEvent = (UserKafkaEvent) event;
                     return "USER_DELETED".equals(kafkaEvent.getEventType()) &&
@@ -0,0 +1,92 @@
+package org.ausiankou.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.ausiankou.model.OutboxEvent;
+import org.ausiankou.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 500);
+        ReflectionTestUtils.setField(outboxRelay, "shards", 4);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    @DisplayName("Пакет публикуется и удаляется после подтверждения")
+    void publishesBatchKeyedByUserAndDeletesIt() throws Exception {
+        // Given
+        UserKafkaEvent event = new UserKafkaEvent("USER_CREATED", "john@test.com", "John", 5L);
+        OutboxEvent outboxEvent = OutboxEvent.builder().id(10L).aggregateId(5L).eventType("USER_CREATED")
+                .payload(objectMapper.writeValueAsString(event)).build();
+        given(outboxEventRepository.tryLockShard(anyLong())).willReturn(true);
+        given(outboxEventRepository.lockBatch(4, 1, 500)).willReturn(List.of(outboxEvent));
+        given(kafkaProducerService.sendEvent(any()))
+                .willReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        // When
+        int sent = outboxRelay.relayShard(1);
+
+        // Then
+        assertThat(sent).isEqualTo(1);
+        verify(kafkaProducerService).sendEvent(event);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(10L));
+    }
+
+    @Test
+    @DisplayName("Ошибка брокера оставляет пакет в outbox")
+    void keepsBatchWhenBrokerFails() throws Exception {
+        // Given
+        OutboxEvent outboxEvent = OutboxEvent.builder().id(10L).aggregateId(5L).eventType("USER_CREATED")
+                .payload(objectMapper.writeValueAsString(new UserKafkaEvent("USER_CREATED", "a@b.c", "A", 5L)))
+                .build();
+        given(outboxEventRepository.tryLockShard(anyLong())).willReturn(true);
+        given(outboxEventRepository.lockBatch(4, 1, 500)).willReturn(List.of(outboxEvent));
+        given(kafkaProducerService.sendEvent(any()))
+                .willReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // When Then
+        assertThatThrownBy(() -> outboxRelay.relayShard(1)).isInstanceOf(IllegalStateException.class);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+}
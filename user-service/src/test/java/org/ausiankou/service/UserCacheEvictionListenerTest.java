@@ -0,0 +1,32 @@
+package org.ausiankou.service;
+
+import org.ausiankou.config.CacheConfig;
+import org.ausiankou.dto.events.UserKafkaEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheEvictionListenerTest {
+
+    @Test
+    @DisplayName("USER_CACHE_EVICT удаляет пользователя из локального кэша, остальные события игнорируются")
+    void evictsOnlyOnCacheEvictEvent() {
+        // Given
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.USERS_CACHE);
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        cache.put(1L, "John");
+        cache.put(2L, "Jane");
+        UserCacheEvictionListener listener = new UserCacheEvictionListener(cacheManager);
+
+        // When
+        listener.onUserEvent(UserKafkaEvent.builder().eventType("USER_CREATED").userId(2L).build());
+        listener.onUserEvent(UserKafkaEvent.builder().eventType(UserKafkaEvent.USER_CACHE_EVICT).userId(1L).build());
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+    }
+}
@@ -0,0 +1,119 @@
+package org.ausiankou.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.ausiankou.config.CacheConfig;
+import org.ausiankou.dto.UserMapper;
+import org.ausiankou.dto.UserRequestDto;
+import org.ausiankou.dto.UserResponseDto;
+import org.ausiankou.model.User;
+import org.ausiankou.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringJUnitConfig(classes = {CacheConfig.class, UserServiceImpl.class, UserMapper.class})
+class UserServiceCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserEventOutbox userEventOutbox;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    @MockBean
+    private Validator validator;
+
+    @Test
+    @DisplayName("Повторное чтение пользователя не идет в репозиторий, обновление сбрасывает кэш")
+    void getUserByIdIsCachedUntilUpdate() {
+        // Given
+        User user = User.builder().id(1L).name("John").email("john@test.com").age(25).build();
+        given(userRepository.findById(1L)).willReturn(Optional.of(user));
+        given(userRepository.save(any(User.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        UserResponseDto first = userService.getUserById(1L);
+        UserResponseDto second = userService.getUserById(1L);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findById(1L);
+
+        // When
+        userService.updateUser(1L, new UserRequestDto("John Updated", "john@test.com", 26));
+        UserResponseDto afterUpdate = userService.getUserById(1L);
+
+        // Then
+        assertThat(afterUpdate.getName()).isEqualTo("John Updated");
+        verify(userRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Удаление сбрасывает кэш пользователя")
+    void deleteEvictsUser() {
+        // Given
+        User user = User.builder().id(2L).name("Jane").email("jane@test.com").age(30).build();
+        given(userRepository.findById(2L)).willReturn(Optional.of(user));
+        userService.getUserById(2L);
+
+        // When
+        userService.deleteUser(2L);
+        userService.getUserById(2L);
+
+        // Then
+        verify(userRepository, times(3)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Сброс ключа во время загрузки ждет ее и не оставляет в кэше устаревшую строку")
+    void evictDuringLoadDropsStaleValue() throws Exception {
+        // Given: чтение из БД началось до коммита изменения и еще не вернулось
+        User stale = User.builder().id(3L).name("Old").email("old@test.com").age(40).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(userRepository.findById(3L)).willAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(stale);
+        });
+        Thread reader = new Thread(() -> userService.getUserById(3L));
+        reader.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+
+        // When: сброс после коммита приходит, пока загрузка не завершена
+        Thread evictor = new Thread(() -> cache.evict(3L));
+        evictor.start();
+        evictor.join(200);
+        release.countDown();
+        reader.join(5_000);
+        evictor.join(5_000);
+
+        // Then
+        assertThat(cache.get(3L)).isNull();
+    }
+}
@@ -1,10 +1,14 @@
 package org.ausiankou.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.ausiankou.dto.BulkItemResultDto;
 import org.ausiankou.dto.UserMapper;
 import org.ausiankou.dto.UserRequestDto;
 import org.ausiankou.dto.UserResponseDto;
 import org.ausiankou.dto.events.UserCreatedEvent;
 import org.ausiankou.dto.events.UserDeletedEvent;
+import org.ausiankou.dto.events.UserKafkaEvent;
 import org.ausiankou.model.User;
 import org.ausiankou.repository.UserRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -13,17 +17,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,11 +53,20 @@ class UserServiceImplTest {
     private UserServiceImpl userService;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private UserEventOutbox userEventOutbox;
 
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @Test
     @DisplayName("Проверка создания пользователя")
     void checkCreateUser() {
@@ -68,7 +90,7 @@ class UserServiceImplTest {
         // Then
         assertEquals("Sam", result.getName());
         verify(userRepository).save(userEntity);
-        verify(kafkaProducerService).sendUserCreatedEvent(1L, "sam@example.com", "Sam");
+        verify(userEventOutbox).append(new UserKafkaEvent("USER_CREATED", "sam@example.com", "Sam", 1L));
         verify(eventPublisher).publishEvent(any(UserCreatedEvent.class));
     }
 
@@ -103,8 +125,53 @@ class UserServiceImplTest {
     }
 
     @Test
-    @DisplayName("Возвращение списка пользователей")
-    void getAllUsersList() {
+    @DisplayName("Возвращение страницы пользователей после указанного ID")
+    void getUsersAfterId() {
+        // Given
+        User user1 = User.builder().id(11L).name("John").build();
+        User user2 = User.builder().id(12L).name("Jane").build();
+
+        UserResponseDto dto1 = new UserResponseDto(11L, "John", "john@test.com", 25, null);
+        UserResponseDto dto2 = new UserResponseDto(12L, "Jane", "jane@test.com", 30, null);
+
+        given(userRepository.findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 2)))
+                .willReturn(new SliceImpl<>(Arrays.asList(user1, user2), PageRequest.of(0, 2), true));
+        given(userMapper.toResponseDto(user1)).willReturn(dto1);
+        given(userMapper.toResponseDto(user2)).willReturn(dto2);
+
+        // When
+        Slice<UserResponseDto> result = userService.getUsers(10L, 2);
+
+        // Then
+        assertThat(result.getContent()).extracting(UserResponseDto::getName).containsExactly("John", "Jane");
+        assertThat(result.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Пользователи по списку ID: один findAllById, порядок запроса, без повторов и пропусков")
+    void getUsersByIdsKeepsRequestOrder() {
+        // Given
+        User user1 = User.builder().id(1L).name("John").build();
+        User user3 = User.builder().id(3L).name("Jane").build();
+
+        UserResponseDto dto1 = new UserResponseDto(1L, "John", "john@test.com", 25, null);
+        UserResponseDto dto3 = new UserResponseDto(3L, "Jane", "jane@test.com", 30, null);
+
+        given(userRepository.findAllById(List.of(3L, 2L, 1L))).willReturn(List.of(user1, user3));
+        given(userMapper.toResponseDto(user1)).willReturn(dto1);
+        given(userMapper.toResponseDto(user3)).willReturn(dto3);
+
+        // When
+        List<UserResponseDto> result = userService.getUsersByIds(Arrays.asList(3L, 2L, null, 1L, 3L));
+
+        // Then
+        assertThat(result).containsExactly(dto3, dto1);
+        verify(userRepository).findAllById(List.of(3L, 2L, 1L));
+    }
+
+    @Test
+    @DisplayName("Выгрузка отдает пользователей по одному и отсоединяет их от контекста")
+    void exportUsersStreamsAndDetaches() {
         // Given
         User user1 = User.builder().id(1L).name("John").build();
         User user2 = User.builder().id(2L).name("Jane").build();
@@ -112,20 +179,51 @@ class UserServiceImplTest {
         UserResponseDto dto1 = new UserResponseDto(1L, "John", "john@test.com", 25, null);
         UserResponseDto dto2 = new UserResponseDto(2L, "Jane", "jane@test.com", 30, null);
 
-        given(userRepository.findAll()).willReturn(Arrays.asList(user1, user2));
+        given(userRepository.streamAllOrderById()).willReturn(Stream.of(user1, user2));
         given(userMapper.toResponseDto(user1)).willReturn(dto1);
         given(userMapper.toResponseDto(user2)).willReturn(dto2);
+        List<UserResponseDto> exported = new ArrayList<>();
 
         // When
-        List<UserResponseDto> result = userService.getAllUsers();
+        userService.exportUsers(exported::add);
 
         // Then
-        assertThat(result).hasSize(2);
-        assertThat(result.get(0).getName()).isEqualTo("John");
-        assertThat(result.get(1).getName()).isEqualTo("Jane");
+        assertThat(exported).containsExactly(dto1, dto2);
+        verify(entityManager).detach(user1);
+        verify(entityManager).detach(user2);
     }
 
 
+    @Test
+    @DisplayName("Пакетное создание: одна проверка email, результат по каждому элементу, события одним пакетом")
+    void createUsersReportsPerItemResults() {
+        // Given
+        UserRequestDto fresh = new UserRequestDto("John", "john@test.com", 25);
+        UserRequestDto taken = new UserRequestDto("Jane", "jane@test.com", 30);
+        UserRequestDto repeated = new UserRequestDto("Johnny", "john@test.com", 26);
+        User user = User.builder().name("John").email("john@test.com").age(25).build();
+
+        given(userRepository.findExistingEmails(List.of("john@test.com", "jane@test.com")))
+                .willReturn(Set.of("jane@test.com"));
+        given(userMapper.toEntity(fresh)).willReturn(user);
+        doAnswer(invocation -> {
+            invocation.<User>getArgument(0).setId(7L);
+            return null;
+        }).when(entityManager).persist(user);
+
+        // When
+        List<BulkItemResultDto> results = userService.createUsers(List.of(fresh, taken, repeated));
+
+        // Then
+        assertThat(results).extracting(BulkItemResultDto::getStatus).containsExactly(
+                BulkItemResultDto.Status.CREATED, BulkItemResultDto.Status.CONFLICT, BulkItemResultDto.Status.CONFLICT);
+        assertThat(results.get(0).getId()).isEqualTo(7L);
+        verify(entityManager).persist(user);
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userEventOutbox).appendAll(
+                List.of(new UserKafkaEvent("USER_CREATED", "john@test.com", "John", 7L)));
+    }
+
     @Test
     @DisplayName("Обновление пользователя и возврат его")
     void updateUser() {
@@ -164,7 +262,7 @@ class UserServiceImplTest {
 
         // Then
         verify(userRepository).deleteById(1L);
-        verify(kafkaProducerService).sendUserDeletedEvent(1L, "sam@example.com", "Sam");
+        verify(userEventOutbox).append(new UserKafkaEvent("USER_DELETED", "sam@example.com", "Sam", 1L));
         verify(eventPublisher).publishEvent(any(UserDeletedEvent.class));
     }
 }
\ No newline at end of file